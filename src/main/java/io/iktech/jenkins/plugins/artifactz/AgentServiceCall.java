@@ -0,0 +1,173 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.Secret;
+import io.artifactz.client.Feedback;
+import io.artifactz.client.FeedbackLevel;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import jenkins.security.MasterToSlaveCallable;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Artifactz call performed by the agent running the build, so the HTTP and TLS work scales out with the agents.
+ *
+ * The controller keeps the orchestration: the retries, the circuit breaker, the concurrency limit and the version cache
+ * wrap the remote call as they wrap a local one. The API token and the proxy password are resolved on the controller
+ * and sent as {@link Secret}s over the remoting channel only, they are not written to the disk or the build log of the
+ * agent. The agent builds a service client for every call and drops it together with the token when the call returns,
+ * so no credentials outlive the call on the agent.
+ *
+ * @param <T> the type of the call result
+ */
+public final class AgentServiceCall<T> extends MasterToSlaveCallable<T, ClientException> {
+    private static final long serialVersionUID = 3342806519046290873L;
+
+    private static final ThreadLocal<TaskListener> currentListener = new ThreadLocal<>();
+
+    private static final Feedback feedback = new ListenerFeedback();
+
+    private final String serverUrl;
+    private final Secret token;
+    private final String proxy;
+    private final String proxyUsername;
+    private final Secret proxyPassword;
+    private final TaskListener taskListener;
+    private final Operation<T> operation;
+
+    public AgentServiceCall(ConfigurationSnapshot configuration, TaskListener taskListener, String token, Operation<T> operation) {
+        this.serverUrl = configuration.getServerUrl();
+        this.token = Secret.fromString(token);
+        this.proxy = configuration.getProxy();
+        StandardUsernamePasswordCredentials proxyCredentials = ServiceHelper.getProxyCredentials(configuration);
+        this.proxyUsername = proxyCredentials != null ? proxyCredentials.getUsername() : null;
+        this.proxyPassword = proxyCredentials != null ? proxyCredentials.getPassword() : null;
+        this.taskListener = taskListener;
+        this.operation = operation;
+    }
+
+    /**
+     * Performs the operation on the agent owning the workspace.
+     *
+     * @param workspace the workspace of the build
+     * @param configuration the configuration of the calling step
+     * @param taskListener the listener the client feedback is sent to
+     * @param token the API token
+     * @param operation the operation
+     * @param <T> the type of the operation result
+     * @return the operation result
+     * @throws ClientException if the operation fails or the agent cannot be reached
+     */
+    static <T> T call(@Nonnull FilePath workspace, ConfigurationSnapshot configuration, TaskListener taskListener, String token, Operation<T> operation) throws ClientException, InterruptedException {
+        VirtualChannel channel = workspace.getChannel();
+        try {
+            return channel.call(new AgentServiceCall<>(configuration, taskListener, token, operation));
+        } catch (IOException e) {
+            throw new ClientException("Could not reach the agent of the build: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public T call() throws ClientException {
+        String username = this.proxyUsername;
+        String password = this.proxyPassword != null ? this.proxyPassword.getPlainText() : null;
+        String apiToken = this.token.getPlainText();
+        currentListener.set(this.taskListener);
+        try {
+            ServiceClient client = ServiceClientBuilder
+                    .withBaseUrl(this.serverUrl)
+                    .withApiToken(apiToken)
+                    .withUserAgent("Jenkins Artifactz.io plugin/1.0")
+                    .withSender("jenkins-plugin")
+                    .withProxyUrl(this.proxy)
+                    .withProxyUsername(username)
+                    .withProxyPassword(password)
+                    .provideFeedback(feedback)
+                    .build();
+            try {
+                return this.operation.perform(client);
+            } finally {
+                ServiceClientCache.close(client);
+            }
+        } finally {
+            currentListener.remove();
+        }
+    }
+
+    /**
+     * Service call shipped to the agent.
+     *
+     * @param <T> the type of the call result
+     */
+    public interface Operation<T> extends Serializable {
+        T perform(ServiceClient client) throws ClientException;
+    }
+
+    public static final class Push implements Operation<String> {
+        private static final long serialVersionUID = -4410946129452830522L;
+
+        private final String stage;
+        private final String name;
+        private final String version;
+
+        public Push(String stage, String name, String version) {
+            this.stage = stage;
+            this.name = name;
+            this.version = version;
+        }
+
+        @Override
+        public String perform(ServiceClient client) throws ClientException {
+            return client.pushArtifact(this.stage, this.name, this.version);
+        }
+    }
+
+    public static final class Publish implements Operation<Void> {
+        private static final long serialVersionUID = 6938512830391146725L;
+
+        private final String stage;
+        private final String stageDescription;
+        private final String name;
+        private final String description;
+        private final String flow;
+        private final String type;
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+
+        public Publish(String stage, String stageDescription, String name, String description, String flow, String type, String groupId, String artifactId, String version) {
+            this.stage = stage;
+            this.stageDescription = stageDescription;
+            this.name = name;
+            this.description = description;
+            this.flow = flow;
+            this.type = type;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+        }
+
+        @Override
+        public Void perform(ServiceClient client) throws ClientException {
+            client.publishArtifact(this.stage, this.stageDescription, this.name, this.description, this.flow, this.type, this.groupId, this.artifactId, this.version);
+            return null;
+        }
+    }
+
+    private static final class ListenerFeedback implements Feedback {
+        @Override
+        public void send(FeedbackLevel feedbackLevel, String s) {
+            TaskListener taskListener = currentListener.get();
+            if (taskListener != null) {
+                taskListener.getLogger().println(s);
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import hudson.*;
 import hudson.model.*;
@@ -14,7 +13,6 @@ import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.annotation.Obsolete;
 import org.jenkinsci.Symbol;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -140,7 +138,8 @@ public class ArtifactVersionPublisher extends Builder implements SimpleBuildStep
 
     @Override
     public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath filePath, @Nonnull Launcher launcher, @Nonnull TaskListener taskListener) throws InterruptedException, IOException {
-        final EnvVars env = run.getEnvironment(taskListener);
+        ConfigurationSnapshot configuration = Configuration.snapshot();
+        final LazyEnvironment env = new LazyEnvironment(run, taskListener);
         String expandedStage = env.expand(this.getStage());
         String expandedStageDescription = env.expand(this.getStageDescription());
         String expandedName = env.expand(this.getName());
@@ -148,7 +147,7 @@ public class ArtifactVersionPublisher extends Builder implements SimpleBuildStep
         String expandedGroupId = env.expand(this.getGroupId());
         String expandedArtifactId = env.expand(this.getArtifactId());
         String expandedVersion = env.expand(this.getVersion());
-        taskListener.getLogger().println("Patching the artifact version details at the stage '" + expandedStage + "' to the Artifactor instance @ " + Configuration.get().getServerUrl());
+        taskListener.getLogger().println("Patching the artifact version details at the stage '" + expandedStage + "' to the Artifactor instance @ " + configuration.getServerUrl());
         taskListener.getLogger().println("Artifact details:");
         taskListener.getLogger().println("  name: " + expandedName);
         if (!StringUtils.isEmpty(expandedDescription)) {
@@ -161,21 +160,31 @@ public class ArtifactVersionPublisher extends Builder implements SimpleBuildStep
             taskListener.getLogger().println("  artifact Id: " + expandedArtifactId);
         }
         taskListener.getLogger().println("  version: " + expandedVersion);
-        String credentialsId = Configuration.get().getCredentialsId();
+        String credentialsId = configuration.getCredentialsId();
         if (credentialsId == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
             throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
         }
 
-        StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+        String token = CredentialsCache.get().getToken(run, credentialsId);
         if (token == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
             throw new AbortException("Could not find specified credentials. Cannot continue.");
         }
 
         try {
-            ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
-            client.publishArtifact(expandedStage, expandedStageDescription, expandedName, expandedDescription, this.getFlow(), this.getType(), expandedGroupId, expandedArtifactId, expandedVersion);
+            String flow = this.getFlow();
+            String type = this.getType();
+            ArtifactzExecutor.call(ServiceHelper.withFeedback(taskListener, () -> {
+                try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(configuration, taskListener, token)) {
+                    ServiceClient client = lease.getClient();
+                    return configuration.getRetryPolicy().write(taskListener, true, () -> {
+                        client.publishArtifact(expandedStage, expandedStageDescription, expandedName, expandedDescription, flow, type, expandedGroupId, expandedArtifactId, expandedVersion);
+                        return null;
+                    });
+                }
+            }));
+            VersionCache.put(configuration, token, expandedStage, expandedName, expandedVersion);
             taskListener.getLogger().println("Successfully patched artifact version");
         } catch (ClientException e) {
             ServiceHelper.interruptExecution(run, taskListener, e.getMessage());
@@ -0,0 +1,231 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.EnvVars;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single environment contribution of the Artifactz build steps to a run: the pushed versions and the retrieved
+ * versions, in the order the steps added them, the later values overriding the earlier ones.
+ *
+ * The pushed versions are kept on the run. The retrieved versions are stored as JSON documents in files in the build
+ * directory and only their handles are kept on the run, so loading the build history does not load them. The
+ * contributions are merged into an immutable map on the first environment request after a change, the map is then
+ * reused by the following requests as long as it is not reclaimed by the garbage collector.
+ */
+public class ArtifactzEnvironmentAction implements RunAction2, EnvironmentContributingAction {
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactzEnvironmentAction.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static final String DIRECTORY = "artifactz";
+
+    private final List<Contribution> contributions = new ArrayList<>();
+
+    private transient Run<?, ?> run;
+
+    private transient volatile SoftReference<Map<String, String>> environment;
+
+    /**
+     * Returns the action of the run, adding it if the run has none yet.
+     *
+     * @param run the run
+     * @return the action
+     */
+    public static ArtifactzEnvironmentAction of(@Nonnull Run<?, ?> run) {
+        synchronized (ArtifactzEnvironmentAction.class) {
+            ArtifactzEnvironmentAction action = run.getAction(ArtifactzEnvironmentAction.class);
+            if (action == null) {
+                action = new ArtifactzEnvironmentAction();
+                action.run = run;
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    /**
+     * Adds a variable kept on the run.
+     *
+     * @param name the variable name
+     * @param value the value
+     */
+    public void put(String name, String value) {
+        add(new Contribution(name, value, null, false));
+    }
+
+    /**
+     * Writes the versions to a new file in the build directory, exposed as a single variable. The document is
+     * streamed to the file, it is only held in memory when the environment of the run is requested.
+     *
+     * @param variableName the variable name
+     * @param document writes the JSON document
+     * @throws IOException if the file cannot be written
+     */
+    public void putVersions(String variableName, DocumentWriter document) throws IOException {
+        add(new Contribution(variableName, null, write(document), false));
+    }
+
+    /**
+     * Writes the variables to a new file in the build directory, exposed as they are.
+     *
+     * @param variables the values keyed by the variable name
+     * @throws IOException if the file cannot be written
+     */
+    public void putVariables(Map<String, String> variables) throws IOException {
+        add(new Contribution(null, null, write(generator -> objectMapper.writeValue(generator, variables)), true));
+    }
+
+    private String write(DocumentWriter document) throws IOException {
+        File directory = new File(this.run.getRootDir(), DIRECTORY);
+        Files.createDirectories(directory.toPath());
+        synchronized (this.contributions) {
+            int index = this.contributions.size();
+            while (new File(directory, getFileName(index)).exists()) {
+                index++;
+            }
+            String fileName = getFileName(index);
+            try (OutputStream out = Files.newOutputStream(new File(directory, fileName).toPath());
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                document.write(generator);
+            }
+            return fileName;
+        }
+    }
+
+    private static String getFileName(int index) {
+        return "versions-" + index + ".json";
+    }
+
+    private void add(Contribution contribution) {
+        synchronized (this.contributions) {
+            this.contributions.add(contribution);
+            this.environment = null;
+        }
+    }
+
+    /**
+     * @return the merged variables, the map is immutable
+     */
+    public Map<String, String> getEnvironment() {
+        SoftReference<Map<String, String>> reference = this.environment;
+        Map<String, String> merged = reference != null ? reference.get() : null;
+        if (merged != null) {
+            return merged;
+        }
+
+        synchronized (this.contributions) {
+            merged = new LinkedHashMap<>();
+            for (Contribution contribution : this.contributions) {
+                contribution.contribute(this.run, merged);
+            }
+            merged = Collections.unmodifiableMap(merged);
+            this.environment = new SoftReference<>(merged);
+            return merged;
+        }
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    @Override
+    public void buildEnvironment(@Nonnull Run<?, ?> run, @Nonnull EnvVars env) {
+        env.putAll(getEnvironment());
+    }
+
+    /**
+     * Writes a JSON document to the side file of a contribution.
+     */
+    @FunctionalInterface
+    public interface DocumentWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static final class Contribution {
+        private final String name;
+        private final String value;
+        private final String fileName;
+        private final boolean variables;
+
+        Contribution(String name, String value, String fileName, boolean variables) {
+            this.name = name;
+            this.value = value;
+            this.fileName = fileName;
+            this.variables = variables;
+        }
+
+        void contribute(Run<?, ?> run, Map<String, String> environment) {
+            String content = this.fileName != null ? read(run) : this.value;
+            if (content == null) {
+                return;
+            }
+            if (!this.variables) {
+                if (this.name != null) {
+                    environment.put(this.name, content);
+                }
+                return;
+            }
+            try {
+                environment.putAll(objectMapper.readValue(content, new TypeReference<Map<String, String>>() {}));
+            } catch (IOException e) {
+                logger.warn("Could not parse the retrieved versions of {}", run, e);
+            }
+        }
+
+        @CheckForNull
+        private String read(Run<?, ?> run) {
+            if (run == null) {
+                return null;
+            }
+            File file = new File(new File(run.getRootDir(), DIRECTORY), this.fileName);
+            try {
+                return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Could not read the retrieved versions of {} from {}", run, file, e);
+                return null;
+            }
+        }
+    }
+}
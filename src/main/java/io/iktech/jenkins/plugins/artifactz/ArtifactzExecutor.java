@@ -0,0 +1,132 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.AbortException;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.artifactz.client.exception.ClientException;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pool running all the Artifactz service calls made by the plugin steps and builders.
+ *
+ * The pool acts as a bulkhead: when the Artifactz service slows down, the blocked calls pile up in this pool and its
+ * queue instead of in the threads Jenkins shares between the plugins. Once the queue is full new calls are rejected.
+ */
+public final class ArtifactzExecutor {
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    public static final int DEFAULT_QUEUE_DEPTH = 500;
+
+    private static final AtomicLong rejectedCount = new AtomicLong();
+
+    private static volatile ThreadPoolExecutor executor = create(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_DEPTH);
+
+    private static volatile int queueDepth = DEFAULT_QUEUE_DEPTH;
+
+    private ArtifactzExecutor() {
+    }
+
+    public static ExecutorService get() {
+        return executor;
+    }
+
+    /**
+     * Runs the service call on the pool and waits for its result.
+     *
+     * @param call the service call
+     * @param <T> the type of the call result
+     * @return the call result
+     * @throws ClientException if the service call fails
+     * @throws IOException if the call cannot be scheduled or fails unexpectedly
+     * @throws InterruptedException if the calling thread is interrupted while waiting, the call is cancelled then
+     */
+    public static <T> T call(ServiceCall<T> call) throws ClientException, IOException, InterruptedException {
+        Future<T> future;
+        try {
+            future = executor.submit(call::call);
+        } catch (RejectedExecutionException e) {
+            throw new AbortException("Too many Artifactz service calls are queued, cannot continue.");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Replaces the pool if its size or queue depth differ from the requested ones. The calls already submitted to the
+     * old pool are completed by it.
+     *
+     * @param poolSize the number of threads
+     * @param depth the maximum number of the queued calls
+     */
+    public static synchronized void resize(int poolSize, int depth) {
+        ThreadPoolExecutor current = executor;
+        if (current.getMaximumPoolSize() == poolSize && queueDepth == depth) {
+            return;
+        }
+        executor = create(poolSize, depth);
+        queueDepth = depth;
+        current.shutdown();
+    }
+
+    public static ThreadPoolExecutor create(int poolSize, int queueDepth) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueDepth),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Artifactz"),
+                (r, e) -> {
+                    rejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException("Artifactz executor queue is full");
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public static int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public static int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public static int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public static int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public static long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public interface ServiceCall<T> {
+        T call() throws ClientException, InterruptedException;
+    }
+}
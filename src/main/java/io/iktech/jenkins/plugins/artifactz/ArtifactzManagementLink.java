@@ -0,0 +1,198 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Exposes the Artifactz plugin runtime statistics on the Manage Jenkins page.
+ */
+@Extension
+public class ArtifactzManagementLink extends ManagementLink {
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.ArtifactzManagementLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.ArtifactzManagementLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "artifactz";
+    }
+
+    @Nonnull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public Outbox getOutbox() {
+        return Outbox.get();
+    }
+
+    @RequirePOST
+    public HttpResponse doRetryOutbox() throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Outbox.get().retryNow();
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doDeleteOutboxEntry(@QueryParameter long id) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        Outbox.get().remove(id);
+        return HttpResponses.redirectToDot();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public CredentialsCache getCredentialsCache() {
+        return CredentialsCache.get();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getExecutorPoolSize() {
+        return ArtifactzExecutor.getPoolSize();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getExecutorQueueDepth() {
+        return ArtifactzExecutor.getQueueDepth();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getExecutorQueuedCount() {
+        return ArtifactzExecutor.getQueuedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getExecutorActiveCount() {
+        return ArtifactzExecutor.getActiveCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getExecutorRejectedCount() {
+        return ArtifactzExecutor.getRejectedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getRetrieveRequestCount() {
+        return VersionRetriever.getRequestCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getRetrieveCoalescedCount() {
+        return VersionRetriever.getCoalescedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getRetrieveStaleCount() {
+        return VersionRetriever.getStaleCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getBatchCount() {
+        return RetrieveBatcher.getBatchCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getBatchedRequestCount() {
+        return RetrieveBatcher.getBatchedRequestCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public String getAverageBatchFillRatio() {
+        return String.format("%.1f%%", RetrieveBatcher.getAverageFillRatio() * 100);
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getHedgedCount() {
+        return HedgedRetrieve.getHedgedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getHedgeWinCount() {
+        return HedgedRetrieve.getHedgeWinCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return CircuitBreaker.getState();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getCircuitBreakerFailureRate() {
+        return CircuitBreaker.getFailureRate();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getCircuitBreakerOpenedCount() {
+        return CircuitBreaker.getOpenedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getCircuitBreakerRejectedCount() {
+        return CircuitBreaker.getRejectedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getConcurrencyLimit() {
+        return ConcurrencyLimiter.getLimit();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getConcurrencyInFlight() {
+        return ConcurrencyLimiter.getInFlight();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getConcurrencyWaiting() {
+        return ConcurrencyLimiter.getWaiting();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getConcurrencyAverageWaitMillis() {
+        return ConcurrencyLimiter.getAverageWaitMillis();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getConcurrencyQueuedCount() {
+        return ConcurrencyLimiter.getQueuedCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getRetryCount() {
+        return RetryPolicy.getRetryCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public int getVersionCacheSize() {
+        return VersionCache.getSize();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getVersionCacheHitCount() {
+        return VersionCache.getHitCount();
+    }
+
+    @SuppressWarnings("unused") // used by jelly
+    public long getVersionCacheMissCount() {
+        return VersionCache.getMissCount();
+    }
+}
@@ -0,0 +1,139 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.springframework.security.core.Authentication;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous step execution: {@link #start()} hands the work over to the {@link ArtifactzExecutor} and returns
+ * straight away, and the step context is completed from the executor once the service call is done.
+ *
+ * In the {@link #isAsync() asynchronous mode} the step completes immediately with the handle of the call registered in
+ * {@link PendingCalls}, and the call result is collected later by the {@code waitForArtifactz} step. The run, the
+ * listener and the workspace are therefore resolved in {@link #start()}, while the step context is still alive, and
+ * handed over to {@link #run(Run, TaskListener, FilePath)}.
+ *
+ * @param <T> the type of the step result
+ */
+public abstract class ArtifactzStepExecution<T> extends StepExecution {
+    private static final long serialVersionUID = -3405946203513461327L;
+
+    private transient volatile Future<?> task;
+
+    protected ArtifactzStepExecution(@Nonnull StepContext context) {
+        super(context);
+    }
+
+    /**
+     * Performs the step work on the Artifactz executor.
+     *
+     * @param run the run of the step
+     * @param taskListener the listener of the step
+     * @param workspace the workspace of the step, {@code null} outside a node block
+     * @return the step result
+     * @throws Exception if the step fails
+     */
+    protected abstract T run(@Nonnull Run<?, ?> run, @Nonnull TaskListener taskListener, @CheckForNull FilePath workspace) throws Exception;
+
+    /**
+     * @return whether the step completes without waiting for the call
+     */
+    protected boolean isAsync() {
+        return false;
+    }
+
+    /**
+     * @return the description of the call used in the messages of the asynchronous mode
+     */
+    protected String describe() {
+        return "Artifactz call";
+    }
+
+    /**
+     * Reports the step failure. Outside the asynchronous mode the build is interrupted as well, in the asynchronous
+     * mode the failure is reported by the {@code waitForArtifactz} step.
+     */
+    protected void interruptExecution(@Nonnull Run<?, ?> run, @Nonnull TaskListener taskListener, String message) {
+        if (isAsync()) {
+            taskListener.error(message);
+        } else {
+            ServiceHelper.interruptExecution(run, taskListener, message);
+        }
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        Authentication auth = Jenkins.getAuthentication2();
+        Run<?, ?> run = getContext().get(Run.class);
+        TaskListener taskListener = getContext().get(TaskListener.class);
+        FilePath workspace = getContext().get(FilePath.class);
+        if (isAsync()) {
+            return startAsync(auth, run, taskListener, workspace);
+        }
+        try {
+            this.task = ArtifactzExecutor.get().submit(() -> {
+                try (ACLContext ignored = ACL.as2(auth)) {
+                    getContext().onSuccess(run(run, taskListener, workspace));
+                } catch (Throwable t) {
+                    getContext().onFailure(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new AbortException("Too many Artifactz service calls are queued, cannot continue.");
+        }
+        return false;
+    }
+
+    private boolean startAsync(Authentication auth, Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            this.task = ArtifactzExecutor.get().submit(() -> {
+                try (ACLContext ignored = ACL.as2(auth)) {
+                    result.complete(run(run, taskListener, workspace));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new AbortException("Too many Artifactz service calls are queued, cannot continue.");
+        }
+        getContext().onSuccess(PendingCalls.add(run, describe(), result));
+        return true;
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        Future<?> t = this.task;
+        if (t != null) {
+            t.cancel(true);
+        }
+        super.stop(cause);
+    }
+
+    @Override
+    public void onResume() {
+        getContext().onFailure(new Exception("Resume after a restart not supported for Artifactz steps"));
+    }
+
+    @Override
+    public String getStatus() {
+        Future<?> t = this.task;
+        if (t == null) {
+            return "not yet scheduled";
+        }
+        return t.isDone() ? "completed" : "waiting for the Artifactz service";
+    }
+}
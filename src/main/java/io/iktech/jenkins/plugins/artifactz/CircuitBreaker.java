@@ -0,0 +1,217 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Controller wide circuit breaker in front of the Artifactz service.
+ *
+ * The outcomes of the last calls are kept in a sliding window. A call fails when it ends with a transient error or
+ * takes longer than the slow call threshold. Once the share of the failed calls in a full window reaches the
+ * configured rate, the breaker opens and the calls fail straight away. After the open period a limited number of
+ * probe calls are let through: the breaker closes when all of them succeed and opens again on the first failure.
+ */
+public final class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public static final int DEFAULT_FAILURE_RATE_PERCENT = 50;
+
+    public static final int DEFAULT_SLOW_CALL_MILLIS = 10000;
+
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+
+    public static final int DEFAULT_OPEN_SECONDS = 30;
+
+    public static final int DEFAULT_PROBE_CALLS = 3;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private enum Permit {
+        CALL, PROBE
+    }
+
+    private static final AtomicLong openedCount = new AtomicLong();
+
+    private static final AtomicLong rejectedCount = new AtomicLong();
+
+    private static int failureRatePercent = DEFAULT_FAILURE_RATE_PERCENT;
+    private static int slowCallMillis = DEFAULT_SLOW_CALL_MILLIS;
+    private static int openSeconds = DEFAULT_OPEN_SECONDS;
+    private static int probeCalls = DEFAULT_PROBE_CALLS;
+
+    private static State state = State.CLOSED;
+    private static long openedAt;
+    private static boolean[] window = new boolean[DEFAULT_WINDOW_SIZE];
+    private static int windowCount;
+    private static int windowFailures;
+    private static int windowIndex;
+    private static int probesInFlight;
+    private static int probeSuccesses;
+
+    private CircuitBreaker() {
+    }
+
+    /**
+     * Applies the settings, closing the breaker if the window size changes.
+     *
+     * @param failureRate the failure rate in percent opening the breaker, zero disables the breaker
+     * @param slowCall the duration in milliseconds after which a call counts as failed, zero disables the check
+     * @param windowSize the number of the last calls the failure rate is computed over
+     * @param open the number of seconds the breaker stays open before probing the service
+     * @param probes the number of probe calls closing the breaker
+     */
+    public static synchronized void configure(int failureRate, int slowCall, int windowSize, int open, int probes) {
+        failureRatePercent = failureRate;
+        slowCallMillis = slowCall;
+        openSeconds = open;
+        probeCalls = Math.max(probes, 1);
+        if (window.length != Math.max(windowSize, 1)) {
+            window = new boolean[Math.max(windowSize, 1)];
+            close();
+        }
+        if (failureRatePercent <= 0) {
+            close();
+        }
+    }
+
+    /**
+     * Performs the call unless the breaker is open.
+     *
+     * @param call the service call
+     * @param isFailure tells the errors of the service from the errors of the request
+     * @param <T> the type of the call result
+     * @return the call result
+     * @throws OpenException if the breaker does not let the call through
+     */
+    public static <T> T call(ArtifactzExecutor.ServiceCall<T> call, Predicate<ClientException> isFailure) throws ClientException, InterruptedException {
+        Permit permit = acquire();
+        if (permit == null) {
+            return call.call();
+        }
+
+        long start = System.nanoTime();
+        Boolean failure = Boolean.TRUE;
+        try {
+            T result = call.call();
+            failure = slowCallMillis > 0 && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) > slowCallMillis;
+            return result;
+        } catch (ClientException e) {
+            failure = isFailure.test(e);
+            throw e;
+        } catch (InterruptedException e) {
+            // says nothing about the service
+            failure = null;
+            throw e;
+        } finally {
+            record(permit, failure);
+        }
+    }
+
+    private static synchronized Permit acquire() throws OpenException {
+        if (failureRatePercent <= 0) {
+            return null;
+        }
+        if (state == State.OPEN) {
+            long remaining = openedAt + TimeUnit.SECONDS.toMillis(openSeconds) - System.currentTimeMillis();
+            if (remaining > 0) {
+                rejectedCount.incrementAndGet();
+                throw new OpenException("Artifactz service is unavailable, calls are suspended for another " + TimeUnit.MILLISECONDS.toSeconds(remaining + 999) + " seconds");
+            }
+            logger.info("Probing the Artifactz service");
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= probeCalls) {
+                rejectedCount.incrementAndGet();
+                throw new OpenException("Artifactz service is being probed after failures, try again later");
+            }
+            probesInFlight++;
+            return Permit.PROBE;
+        }
+        return Permit.CALL;
+    }
+
+    private static synchronized void record(Permit permit, Boolean failure) {
+        if (permit == Permit.PROBE) {
+            probesInFlight--;
+            if (state != State.HALF_OPEN || failure == null) {
+                return;
+            }
+            if (failure) {
+                open();
+            } else if (++probeSuccesses >= probeCalls) {
+                logger.info("Artifactz service has recovered, closing the circuit breaker");
+                close();
+            }
+            return;
+        }
+
+        if (state != State.CLOSED || failure == null) {
+            return;
+        }
+        if (windowCount == window.length) {
+            windowFailures -= window[windowIndex] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        windowFailures += failure ? 1 : 0;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (windowCount == window.length && windowFailures * 100 >= failureRatePercent * windowCount) {
+            open();
+        }
+    }
+
+    private static void open() {
+        logger.warn("Artifactz service is failing, opening the circuit breaker for {} seconds", openSeconds);
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        openedCount.incrementAndGet();
+    }
+
+    private static void close() {
+        state = State.CLOSED;
+        windowCount = 0;
+        windowFailures = 0;
+        windowIndex = 0;
+    }
+
+    public static synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the share of the failed calls in the current window, in percent
+     */
+    public static synchronized int getFailureRate() {
+        return windowCount > 0 ? windowFailures * 100 / windowCount : 0;
+    }
+
+    public static long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    public static long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Thrown instead of making a call while the breaker is open.
+     */
+    public static class OpenException extends ClientException {
+        private static final long serialVersionUID = 2811539174409470265L;
+
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Controller wide adaptive limit of the Artifactz calls in flight.
+ *
+ * The limit follows the AIMD algorithm: it grows by one per limit worth of calls completed while the limit is in use,
+ * and it is cut by the backoff ratio when a call fails with a transient error or takes longer than the latency
+ * tolerance times the average latency. The limit never exceeds the {@link ArtifactzExecutor} pool size, and starts at
+ * half of it, so it binds with the default settings too.
+ *
+ * The callers over the limit wait in line, the reads ahead of the writes and in the arrival order otherwise. To keep
+ * a steady flow of reads from starving the writes, a waiting write is let through after at most
+ * {@link #MAX_READS_AHEAD} reads.
+ */
+public final class ConcurrencyLimiter {
+    public static final int DEFAULT_MAX_LIMIT = 50;
+
+    public static final int MAX_READS_AHEAD = 8;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final double LATENCY_SMOOTHING = 0.05;
+
+    private static final double WAIT_SMOOTHING = 0.1;
+
+    private static final Deque<Waiter> reads = new ArrayDeque<>();
+
+    private static final Deque<Waiter> writes = new ArrayDeque<>();
+
+    private static final AtomicLong queuedCount = new AtomicLong();
+
+    private static int maxLimit = Math.min(DEFAULT_MAX_LIMIT, ArtifactzExecutor.DEFAULT_POOL_SIZE);
+
+    private static double limit = initialLimit(maxLimit);
+
+    // the reads let through while a write was waiting
+    private static int readsAhead;
+
+    private static int inFlight;
+
+    private static double averageLatencyMillis;
+
+    private static double averageWaitMillis;
+
+    private ConcurrencyLimiter() {
+    }
+
+    /**
+     * Sets the maximum limit for the current executor pool size and starts adapting the limit over again.
+     *
+     * @param max the maximum limit, zero disables the limiter
+     */
+    public static void configure(int max) {
+        configure(max, ArtifactzExecutor.getPoolSize());
+    }
+
+    /**
+     * Sets the maximum limit and starts adapting the limit over again.
+     *
+     * @param max the maximum limit, zero disables the limiter
+     * @param poolSize the {@link ArtifactzExecutor} pool size, which bounds the limit
+     */
+    public static synchronized void configure(int max, int poolSize) {
+        maxLimit = max > 0 ? Math.min(max, Math.max(poolSize, 1)) : 0;
+        limit = initialLimit(maxLimit);
+        readsAhead = 0;
+        grant();
+    }
+
+    private static double initialLimit(int max) {
+        return Math.max(max / 2, 1);
+    }
+
+    /**
+     * Performs the call once there is room under the limit.
+     *
+     * @param read whether the call only reads data, the reads are let through ahead of the writes
+     * @param call the service call
+     * @param isFailure tells the errors of the service from the errors of the request
+     * @param <T> the type of the call result
+     * @return the call result
+     */
+    public static <T> T call(boolean read, ArtifactzExecutor.ServiceCall<T> call, Predicate<ClientException> isFailure) throws ClientException, InterruptedException {
+        if (!acquire(read)) {
+            return call.call();
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return call.call();
+        } catch (ClientException e) {
+            dropped = isFailure.test(e);
+            throw e;
+        } finally {
+            release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), dropped);
+        }
+    }
+
+    /**
+     * @return {@code false} if the limiter is disabled
+     */
+    private static boolean acquire(boolean read) throws InterruptedException {
+        Waiter waiter;
+        synchronized (ConcurrencyLimiter.class) {
+            if (maxLimit <= 0) {
+                return false;
+            }
+            if (inFlight < (int) limit && reads.isEmpty() && (read || writes.isEmpty())) {
+                inFlight++;
+                recordWait(0);
+                return true;
+            }
+            waiter = new Waiter();
+            (read ? reads : writes).addLast(waiter);
+            queuedCount.incrementAndGet();
+        }
+
+        long start = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (waiter) {
+            while (!waiter.granted && !interrupted) {
+                try {
+                    waiter.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            // the waiter lock is not held here, the limiter lock is always taken first
+            synchronized (ConcurrencyLimiter.class) {
+                if (!waiter.granted) {
+                    (read ? reads : writes).remove(waiter);
+                    throw new InterruptedException();
+                }
+            }
+            // granted meanwhile, use the permit and keep the interrupt for the call
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ConcurrencyLimiter.class) {
+            recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return true;
+    }
+
+    /**
+     * Takes a permit for an additional call made on behalf of a call already let through, e.g. a hedge, only when
+     * there is room under the limit and nobody is waiting for a permit. The permit is returned with
+     * {@link #release(long, boolean)} once the call has returned, or with {@link #cancel()} if the call is not made.
+     *
+     * @return whether the permit has been taken
+     */
+    static synchronized boolean tryAcquire() {
+        if (maxLimit > 0 && (inFlight >= (int) limit || !reads.isEmpty() || !writes.isEmpty())) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    static synchronized void cancel() {
+        inFlight--;
+        grant();
+    }
+
+    static synchronized void release(long latencyMillis, boolean dropped) {
+        boolean saturated = inFlight >= (int) limit;
+        inFlight--;
+        if (averageLatencyMillis == 0) {
+            averageLatencyMillis = latencyMillis;
+        }
+        if (dropped || latencyMillis > LATENCY_TOLERANCE * averageLatencyMillis && latencyMillis > 0) {
+            limit = Math.max(limit * BACKOFF_RATIO, 1);
+        } else if (saturated) {
+            limit = Math.min(limit + 1 / limit, Math.max(maxLimit, 1));
+        }
+        averageLatencyMillis += LATENCY_SMOOTHING * (latencyMillis - averageLatencyMillis);
+        grant();
+    }
+
+    private static void grant() {
+        while (inFlight < (int) limit || maxLimit <= 0) {
+            Waiter waiter;
+            if (!writes.isEmpty() && (reads.isEmpty() || readsAhead >= MAX_READS_AHEAD)) {
+                waiter = writes.pollFirst();
+                readsAhead = 0;
+            } else {
+                waiter = reads.pollFirst();
+                if (waiter == null) {
+                    return;
+                }
+                if (!writes.isEmpty()) {
+                    readsAhead++;
+                }
+            }
+            inFlight++;
+            synchronized (waiter) {
+                waiter.granted = true;
+                waiter.notifyAll();
+            }
+        }
+    }
+
+    private static void recordWait(long waitMillis) {
+        averageWaitMillis += WAIT_SMOOTHING * (waitMillis - averageWaitMillis);
+    }
+
+    public static synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public static synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public static synchronized int getWaiting() {
+        return reads.size() + writes.size();
+    }
+
+    /**
+     * @return the moving average of the time the calls wait for a permit, in milliseconds
+     */
+    public static synchronized long getAverageWaitMillis() {
+        return Math.round(averageWaitMillis);
+    }
+
+    public static long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    private static final class Waiter {
+        private volatile boolean granted;
+    }
+}
@@ -5,34 +5,48 @@ import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import hudson.BulkChange;
 import hudson.Extension;
 import hudson.Util;
 import hudson.model.ItemGroup;
 import hudson.security.ACL;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
-import io.artifactz.client.ServiceClient;
 import io.artifactz.client.exception.ClientException;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.interceptor.RequirePOST;
 
 import javax.annotation.CheckForNull;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Extension
 public class Configuration extends GlobalConfiguration {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_VERSION_CACHE_MAX_SIZE = 10000;
+
+    private static final AtomicReference<ConfigurationSnapshot> current = new AtomicReference<>(ConfigurationSnapshot.EMPTY);
 
     /** @return the singleton instance */
     public static io.iktech.jenkins.plugins.artifactz.Configuration get() {
         return GlobalConfiguration.all().get(io.iktech.jenkins.plugins.artifactz.Configuration.class);
     }
 
+    /** @return the configuration as of the last save, safe to read from any thread without locking */
+    public static ConfigurationSnapshot snapshot() {
+        return current.get();
+    }
+
     @CheckForNull
     private String serverUrl;
 
@@ -45,10 +59,106 @@ public class Configuration extends GlobalConfiguration {
 
     private String proxyCredentialsId;
 
+    private int executorPoolSize = ArtifactzExecutor.DEFAULT_POOL_SIZE;
+
+    private int executorQueueDepth = ArtifactzExecutor.DEFAULT_QUEUE_DEPTH;
+
+    private int batchWindowMillis;
+
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    private int versionCacheTtlSeconds;
+
+    private int versionCacheMaxSize = DEFAULT_VERSION_CACHE_MAX_SIZE;
+
+    private int retryMaxAttempts = RetryPolicy.DEFAULT_MAX_ATTEMPTS;
+
+    private int retryBaseDelayMillis = RetryPolicy.DEFAULT_BASE_DELAY_MILLIS;
+
+    private int retryMaxDelayMillis = RetryPolicy.DEFAULT_MAX_DELAY_MILLIS;
+
+    private int retryJitterPercent = RetryPolicy.DEFAULT_JITTER_PERCENT;
+
+    private String retryableErrors = RetryPolicy.DEFAULT_RETRYABLE_ERRORS;
+
+    private int hedgePercentile;
+
+    private int hedgeBudgetPercent = HedgedRetrieve.DEFAULT_BUDGET_PERCENT;
+
+    private int circuitBreakerFailureRatePercent = CircuitBreaker.DEFAULT_FAILURE_RATE_PERCENT;
+
+    private int circuitBreakerSlowCallMillis = CircuitBreaker.DEFAULT_SLOW_CALL_MILLIS;
+
+    private int circuitBreakerWindowSize = CircuitBreaker.DEFAULT_WINDOW_SIZE;
+
+    private int circuitBreakerOpenSeconds = CircuitBreaker.DEFAULT_OPEN_SECONDS;
+
+    private int circuitBreakerProbeCalls = CircuitBreaker.DEFAULT_PROBE_CALLS;
+
+    private int concurrencyLimitMax = ConcurrencyLimiter.DEFAULT_MAX_LIMIT;
+
+    private boolean runOnAgent;
+
     public Configuration() {
         load();
     }
 
+    @Override
+    public synchronized void load() {
+        super.load();
+        publish();
+    }
+
+    @Override
+    public synchronized void save() {
+        if (BulkChange.contains(this)) {
+            return;
+        }
+        super.save();
+        publish();
+        ServiceHelper.invalidateClients();
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        try (BulkChange bc = new BulkChange(this)) {
+            req.bindJSON(this, json);
+            bc.commit();
+        } catch (IOException e) {
+            throw new FormException(e, "serverUrl");
+        }
+        return true;
+    }
+
+    /**
+     * Applies all the settings at once and persists them with a single save.
+     *
+     * @param serverUrl the Artifactz service URL
+     * @param sender the sender name
+     * @param credentialsId the id of the API token credentials
+     * @param proxy the proxy URL
+     * @param proxyCredentialsId the id of the proxy credentials
+     * @throws IOException if the configuration cannot be saved
+     */
+    public synchronized void update(String serverUrl, String sender, String credentialsId, String proxy, String proxyCredentialsId) throws IOException {
+        try (BulkChange bc = new BulkChange(this)) {
+            setServerUrl(serverUrl);
+            setSender(sender);
+            setCredentialsId(credentialsId);
+            setProxy(proxy);
+            setProxyCredentialsId(proxyCredentialsId);
+            bc.commit();
+        }
+    }
+
+    private void publish() {
+        current.set(new ConfigurationSnapshot(this));
+        ArtifactzExecutor.resize(getExecutorPoolSize(), getExecutorQueueDepth());
+        CircuitBreaker.configure(getCircuitBreakerFailureRatePercent(), getCircuitBreakerSlowCallMillis(),
+                getCircuitBreakerWindowSize(), getCircuitBreakerOpenSeconds(), getCircuitBreakerProbeCalls());
+        ConcurrencyLimiter.configure(getConcurrencyLimitMax(), getExecutorPoolSize());
+    }
+
     @CheckForNull
     public String getServerUrl() {
         return this.serverUrl;
@@ -101,6 +211,212 @@ public class Configuration extends GlobalConfiguration {
         save();
     }
 
+    public int getExecutorPoolSize() {
+        return this.executorPoolSize > 0 ? this.executorPoolSize : ArtifactzExecutor.DEFAULT_POOL_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setExecutorPoolSize(int executorPoolSize) {
+        this.executorPoolSize = executorPoolSize;
+        save();
+    }
+
+    public int getExecutorQueueDepth() {
+        return this.executorQueueDepth > 0 ? this.executorQueueDepth : ArtifactzExecutor.DEFAULT_QUEUE_DEPTH;
+    }
+
+    @DataBoundSetter
+    public void setExecutorQueueDepth(int executorQueueDepth) {
+        this.executorQueueDepth = executorQueueDepth;
+        save();
+    }
+
+    public int getBatchWindowMillis() {
+        return Math.max(this.batchWindowMillis, 0);
+    }
+
+    @DataBoundSetter
+    public void setBatchWindowMillis(int batchWindowMillis) {
+        this.batchWindowMillis = batchWindowMillis;
+        save();
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize > 0 ? this.maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        save();
+    }
+
+    public int getVersionCacheTtlSeconds() {
+        return Math.max(this.versionCacheTtlSeconds, 0);
+    }
+
+    @DataBoundSetter
+    public void setVersionCacheTtlSeconds(int versionCacheTtlSeconds) {
+        this.versionCacheTtlSeconds = versionCacheTtlSeconds;
+        save();
+    }
+
+    public int getVersionCacheMaxSize() {
+        return this.versionCacheMaxSize > 0 ? this.versionCacheMaxSize : DEFAULT_VERSION_CACHE_MAX_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setVersionCacheMaxSize(int versionCacheMaxSize) {
+        this.versionCacheMaxSize = versionCacheMaxSize;
+        save();
+    }
+
+    public int getRetryMaxAttempts() {
+        return this.retryMaxAttempts > 0 ? this.retryMaxAttempts : RetryPolicy.DEFAULT_MAX_ATTEMPTS;
+    }
+
+    @DataBoundSetter
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+        save();
+    }
+
+    public int getRetryBaseDelayMillis() {
+        return Math.max(this.retryBaseDelayMillis, 0);
+    }
+
+    @DataBoundSetter
+    public void setRetryBaseDelayMillis(int retryBaseDelayMillis) {
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        save();
+    }
+
+    public int getRetryMaxDelayMillis() {
+        return Math.max(this.retryMaxDelayMillis, 0);
+    }
+
+    @DataBoundSetter
+    public void setRetryMaxDelayMillis(int retryMaxDelayMillis) {
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+        save();
+    }
+
+    public int getRetryJitterPercent() {
+        return Math.min(Math.max(this.retryJitterPercent, 0), 100);
+    }
+
+    @DataBoundSetter
+    public void setRetryJitterPercent(int retryJitterPercent) {
+        this.retryJitterPercent = retryJitterPercent;
+        save();
+    }
+
+    public String getRetryableErrors() {
+        return this.retryableErrors != null ? this.retryableErrors : RetryPolicy.DEFAULT_RETRYABLE_ERRORS;
+    }
+
+    @DataBoundSetter
+    public void setRetryableErrors(String retryableErrors) {
+        this.retryableErrors = Util.fixNull(retryableErrors);
+        save();
+    }
+
+    public int getHedgePercentile() {
+        return Math.min(Math.max(this.hedgePercentile, 0), 100);
+    }
+
+    @DataBoundSetter
+    public void setHedgePercentile(int hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+        save();
+    }
+
+    public int getHedgeBudgetPercent() {
+        return Math.min(Math.max(this.hedgeBudgetPercent, 0), 100);
+    }
+
+    @DataBoundSetter
+    public void setHedgeBudgetPercent(int hedgeBudgetPercent) {
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+        save();
+    }
+
+    public int getCircuitBreakerFailureRatePercent() {
+        return Math.min(Math.max(this.circuitBreakerFailureRatePercent, 0), 100);
+    }
+
+    @DataBoundSetter
+    public void setCircuitBreakerFailureRatePercent(int circuitBreakerFailureRatePercent) {
+        this.circuitBreakerFailureRatePercent = circuitBreakerFailureRatePercent;
+        save();
+    }
+
+    public int getCircuitBreakerSlowCallMillis() {
+        return Math.max(this.circuitBreakerSlowCallMillis, 0);
+    }
+
+    @DataBoundSetter
+    public void setCircuitBreakerSlowCallMillis(int circuitBreakerSlowCallMillis) {
+        this.circuitBreakerSlowCallMillis = circuitBreakerSlowCallMillis;
+        save();
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return this.circuitBreakerWindowSize > 0 ? this.circuitBreakerWindowSize : CircuitBreaker.DEFAULT_WINDOW_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+        save();
+    }
+
+    public int getCircuitBreakerOpenSeconds() {
+        return this.circuitBreakerOpenSeconds > 0 ? this.circuitBreakerOpenSeconds : CircuitBreaker.DEFAULT_OPEN_SECONDS;
+    }
+
+    @DataBoundSetter
+    public void setCircuitBreakerOpenSeconds(int circuitBreakerOpenSeconds) {
+        this.circuitBreakerOpenSeconds = circuitBreakerOpenSeconds;
+        save();
+    }
+
+    public int getCircuitBreakerProbeCalls() {
+        return this.circuitBreakerProbeCalls > 0 ? this.circuitBreakerProbeCalls : CircuitBreaker.DEFAULT_PROBE_CALLS;
+    }
+
+    @DataBoundSetter
+    public void setCircuitBreakerProbeCalls(int circuitBreakerProbeCalls) {
+        this.circuitBreakerProbeCalls = circuitBreakerProbeCalls;
+        save();
+    }
+
+    public int getConcurrencyLimitMax() {
+        return Math.max(this.concurrencyLimitMax, 0);
+    }
+
+    @DataBoundSetter
+    public void setConcurrencyLimitMax(int concurrencyLimitMax) {
+        this.concurrencyLimitMax = concurrencyLimitMax;
+        save();
+    }
+
+    public boolean isRunOnAgent() {
+        return this.runOnAgent;
+    }
+
+    @DataBoundSetter
+    public void setRunOnAgent(boolean runOnAgent) {
+        this.runOnAgent = runOnAgent;
+        save();
+    }
+
+    /** @return the current state of the circuit breaker, shown on the configuration page */
+    @SuppressWarnings("unused") // used by jelly
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return CircuitBreaker.getState();
+    }
+
     public FormValidation doCheckCredentialsId(@QueryParameter String value) {
         if (StringUtils.isEmpty(value)) {
             return FormValidation.warning("Please select Artifactor Service credentials.");
@@ -115,6 +431,78 @@ public class Configuration extends GlobalConfiguration {
         return FormValidation.ok();
     }
 
+    public FormValidation doCheckExecutorPoolSize(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckExecutorQueueDepth(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckBatchWindowMillis(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxBatchSize(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckVersionCacheTtlSeconds(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckVersionCacheMaxSize(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckRetryMaxAttempts(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckRetryBaseDelayMillis(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckRetryMaxDelayMillis(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckRetryJitterPercent(@QueryParameter String value) {
+        return FormValidation.validateIntegerInRange(value, 0, 100);
+    }
+
+    public FormValidation doCheckHedgePercentile(@QueryParameter String value) {
+        return FormValidation.validateIntegerInRange(value, 0, 100);
+    }
+
+    public FormValidation doCheckHedgeBudgetPercent(@QueryParameter String value) {
+        return FormValidation.validateIntegerInRange(value, 0, 100);
+    }
+
+    public FormValidation doCheckCircuitBreakerFailureRatePercent(@QueryParameter String value) {
+        return FormValidation.validateIntegerInRange(value, 0, 100);
+    }
+
+    public FormValidation doCheckCircuitBreakerSlowCallMillis(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckCircuitBreakerWindowSize(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckCircuitBreakerOpenSeconds(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckCircuitBreakerProbeCalls(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public FormValidation doCheckConcurrencyLimitMax(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
     @RequirePOST
     @SuppressWarnings("unused") // used by jelly
     public FormValidation doTestConnection(@QueryParameter String serverUrl,
@@ -135,9 +523,8 @@ public class Configuration extends GlobalConfiguration {
                         Collections.emptyList()
                 ), CredentialsMatchers.withId(credentialsId));
         if (credentials != null && credentials.getSecret() != null) {
-            try {
-                ServiceClient client = ServiceHelper.getClient(credentials.getSecret().getPlainText());
-                client.validateConnection();
+            try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(credentials.getSecret().getPlainText())) {
+                lease.getClient().validateConnection();
                 return FormValidation.ok("Connection test successful");
             } catch (ClientException e) {
                 return FormValidation.error("Connection failed : " + e.getMessage());
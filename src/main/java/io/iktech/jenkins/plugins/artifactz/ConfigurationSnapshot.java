@@ -0,0 +1,114 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Immutable view of the global {@link Configuration}.
+ *
+ * A new snapshot is published every time the configuration is saved or loaded, so a step reading it once sees the
+ * server URL, the credentials and the proxy settings from the same revision of the configuration.
+ */
+public final class ConfigurationSnapshot {
+    static final ConfigurationSnapshot EMPTY = new ConfigurationSnapshot();
+
+    private final String serverUrl;
+    private final String credentialsId;
+    private final String sender;
+    private final String proxy;
+    private final String proxyCredentialsId;
+    private final int batchWindowMillis;
+    private final int maxBatchSize;
+    private final int versionCacheTtlSeconds;
+    private final int versionCacheMaxSize;
+    private final RetryPolicy retryPolicy;
+    private final int hedgePercentile;
+    private final int hedgeBudgetPercent;
+    private final boolean runOnAgent;
+
+    private ConfigurationSnapshot() {
+        this.serverUrl = null;
+        this.credentialsId = null;
+        this.sender = null;
+        this.proxy = null;
+        this.proxyCredentialsId = null;
+        this.batchWindowMillis = 0;
+        this.maxBatchSize = Configuration.DEFAULT_MAX_BATCH_SIZE;
+        this.versionCacheTtlSeconds = 0;
+        this.versionCacheMaxSize = Configuration.DEFAULT_VERSION_CACHE_MAX_SIZE;
+        this.retryPolicy = RetryPolicy.NONE;
+        this.hedgePercentile = 0;
+        this.hedgeBudgetPercent = HedgedRetrieve.DEFAULT_BUDGET_PERCENT;
+        this.runOnAgent = false;
+    }
+
+    ConfigurationSnapshot(Configuration configuration) {
+        this.serverUrl = configuration.getServerUrl();
+        this.credentialsId = configuration.getCredentialsId();
+        this.sender = configuration.getSender();
+        this.proxy = configuration.getProxy();
+        this.proxyCredentialsId = configuration.getProxyCredentialsId();
+        this.batchWindowMillis = configuration.getBatchWindowMillis();
+        this.maxBatchSize = configuration.getMaxBatchSize();
+        this.versionCacheTtlSeconds = configuration.getVersionCacheTtlSeconds();
+        this.versionCacheMaxSize = configuration.getVersionCacheMaxSize();
+        this.retryPolicy = new RetryPolicy(configuration.getRetryMaxAttempts(), configuration.getRetryBaseDelayMillis(),
+                configuration.getRetryMaxDelayMillis(), configuration.getRetryJitterPercent(), configuration.getRetryableErrors());
+        this.hedgePercentile = configuration.getHedgePercentile();
+        this.hedgeBudgetPercent = configuration.getHedgeBudgetPercent();
+        this.runOnAgent = configuration.isRunOnAgent();
+    }
+
+    @CheckForNull
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    @CheckForNull
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getProxy() {
+        return proxy;
+    }
+
+    public String getProxyCredentialsId() {
+        return proxyCredentialsId;
+    }
+
+    public int getBatchWindowMillis() {
+        return batchWindowMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getVersionCacheTtlSeconds() {
+        return versionCacheTtlSeconds;
+    }
+
+    public int getVersionCacheMaxSize() {
+        return versionCacheMaxSize;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    public boolean isRunOnAgent() {
+        return runOnAgent;
+    }
+}
@@ -0,0 +1,177 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.ItemGroup;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the resolved Artifactz API token credentials and proxy credentials, so the credential stores are not scanned
+ * on every step execution.
+ *
+ * The API token credentials are cached per run, as the credentials visible to a run may depend on the run itself, and
+ * their usage is tracked on every lookup. The entries expire a few minutes after they have been resolved, so the
+ * changes made through the providers that do not save a store, e.g. external secret stores, are picked up. The cache
+ * is also dropped whenever a credential store is saved: the system store, a user store or a folder store.
+ */
+@Extension
+public class CredentialsCache extends SaveableListener {
+    private static final Logger logger = LoggerFactory.getLogger(CredentialsCache.class);
+
+    private static final long TTL_MILLIS = Long.getLong(CredentialsCache.class.getName() + ".ttlMillis", TimeUnit.MINUTES.toMillis(5));
+
+    private static final int MAX_SIZE = Integer.getInteger(CredentialsCache.class.getName() + ".maxSize", 1000);
+
+    private final Map<String, Entry<StringCredentials>> tokens = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Entry<StandardUsernamePasswordCredentials>> proxyCredentials = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public static CredentialsCache get() {
+        return ExtensionList.lookupSingleton(CredentialsCache.class);
+    }
+
+    /**
+     * Resolves the API token in the context of the given run.
+     *
+     * @param run the run requesting the token
+     * @param credentialsId the id of the {@link StringCredentials} holding the token
+     * @return the plain text token or {@code null} if the credentials cannot be found
+     */
+    @CheckForNull
+    public String getToken(@Nonnull Run<?, ?> run, @Nonnull String credentialsId) {
+        String key = run.getExternalizableId() + '\n' + credentialsId;
+        StringCredentials credentials = lookup(this.tokens, key);
+        if (credentials == null) {
+            credentials = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+            if (credentials == null) {
+                return null;
+            }
+            store(this.tokens, key, credentials);
+        } else {
+            CredentialsProvider.track(run, credentials);
+        }
+        return credentials.getSecret().getPlainText();
+    }
+
+    /**
+     * Resolves the proxy credentials from the system credentials store.
+     *
+     * @param credentialsId the id of the proxy credentials
+     * @return the credentials or {@code null} if they cannot be found
+     */
+    @CheckForNull
+    public StandardUsernamePasswordCredentials getProxyCredentials(@Nonnull String credentialsId) {
+        StandardUsernamePasswordCredentials credentials = lookup(this.proxyCredentials, credentialsId);
+        if (credentials != null) {
+            return credentials;
+        }
+
+        credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(
+                        StandardUsernamePasswordCredentials.class,
+                        Jenkins.get(),
+                        ACL.SYSTEM,
+                        Collections.emptyList()
+                ), CredentialsMatchers.withId(credentialsId));
+        if (credentials != null) {
+            store(this.proxyCredentials, credentialsId, credentials);
+        }
+        return credentials;
+    }
+
+    private <C> C lookup(Map<String, Entry<C>> entries, String key) {
+        synchronized (entries) {
+            Entry<C> entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt < TTL_MILLIS) {
+                this.hitCount.incrementAndGet();
+                return entry.credentials;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        this.missCount.incrementAndGet();
+        return null;
+    }
+
+    private static <C> void store(Map<String, Entry<C>> entries, String key, C credentials) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(credentials, System.currentTimeMillis()));
+            Iterator<String> eldest = entries.keySet().iterator();
+            while (entries.size() > MAX_SIZE && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this.tokens) {
+            this.tokens.clear();
+        }
+        synchronized (this.proxyCredentials) {
+            this.proxyCredentials.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public int getSize() {
+        synchronized (this.tokens) {
+            synchronized (this.proxyCredentials) {
+                return this.tokens.size() + this.proxyCredentials.size();
+            }
+        }
+    }
+
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+        // folder credential stores are persisted with the folder itself, user stores with the user
+        if (o instanceof SystemCredentialsProvider || o instanceof User || o instanceof ItemGroup) {
+            logger.debug("Credentials may have changed, dropping resolved credentials");
+            invalidateAll();
+        }
+    }
+
+    private static final class Entry<C> {
+        private final C credentials;
+        private final long storedAt;
+
+        Entry(C credentials, long storedAt) {
+            this.credentials = credentials;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a task for every item of a list with bounded parallelism on the {@link ArtifactzExecutor}.
+ *
+ * The calling thread takes part in the work, so the items are processed even when the executor is saturated, e.g. by
+ * the step executions running on it, and the caller never waits for a helper that has not started yet.
+ */
+final class FanOut {
+    private FanOut() {
+    }
+
+    /**
+     * Processes all the items, returning when every item has been processed.
+     *
+     * @param items the items to process
+     * @param parallelism the maximum number of items processed at the same time
+     * @param task the task to run for every item, responsible for recording its own result or error
+     * @param <I> the item type
+     * @throws InterruptedException if the calling thread is interrupted, in which case the remaining items are skipped
+     */
+    static <I> void run(List<I> items, int parallelism, Task<I> task) throws InterruptedException {
+        Queue<I> queue = new ConcurrentLinkedQueue<>(items);
+        CountDownLatch done = new CountDownLatch(items.size());
+        Runnable worker = () -> {
+            I item;
+            while (!Thread.currentThread().isInterrupted() && (item = queue.poll()) != null) {
+                try {
+                    task.run(item);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        List<Future<?>> helpers = new ArrayList<>();
+        try {
+            for (int i = 1; i < Math.min(parallelism, items.size()); i++) {
+                try {
+                    helpers.add(ArtifactzExecutor.get().submit(worker));
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+            worker.run();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            done.await();
+        } finally {
+            for (Future<?> helper : helpers) {
+                helper.cancel(true);
+            }
+        }
+    }
+
+    interface Task<I> {
+        void run(I item) throws InterruptedException;
+    }
+}
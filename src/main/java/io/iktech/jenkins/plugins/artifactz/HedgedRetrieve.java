@@ -0,0 +1,210 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.artifactz.client.exception.ClientException;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hedges the retrieve calls: when a call has not returned within the configured percentile of the recent retrieve
+ * latencies, an identical second call is made, the first successful response is used and the other call is cancelled.
+ *
+ * The hedged calls are limited by a budget: every retrieve earns the configured percentage of a hedge, so the hedges
+ * add no more than that share of the retrieve load. The calls run on a dedicated pool, since the callers may already
+ * occupy the {@link ArtifactzExecutor}; when the pool is exhausted the call is made without hedging.
+ *
+ * Cancelling the losing call does not abort a blocking HTTP request, so a hedge is a real additional call on the
+ * service. It takes a {@link ConcurrencyLimiter} permit of its own, held until its request actually returns, and is
+ * not made when there is no room under the limit, so the hedges do not pile up on a service that is already slow.
+ * The {@link CircuitBreaker} records a single outcome per retrieve: the first success, or the first error if both
+ * calls fail.
+ */
+public final class HedgedRetrieve {
+    public static final int DEFAULT_BUDGET_PERCENT = 10;
+
+    private static final int MIN_SAMPLES = 20;
+
+    private static final int MAX_BUDGET = 10;
+
+    private static final long[] latencies = new long[256];
+
+    private static int latencyCount;
+
+    private static int latencyIndex;
+
+    private static double budget;
+
+    private static final AtomicLong hedgedCount = new AtomicLong();
+
+    private static final AtomicLong hedgeWinCount = new AtomicLong();
+
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(0, 32, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "Artifactz hedging"));
+
+    private HedgedRetrieve() {
+    }
+
+    /**
+     * Performs the retrieve call, hedging it when enabled in the configuration.
+     *
+     * @param configuration the configuration of the calling step
+     * @param call the retrieve call, safe to repeat
+     * @param <T> the type of the call result
+     * @return the first successful result
+     * @throws ClientException the error of the first call if none succeeded
+     */
+    public static <T> T call(ConfigurationSnapshot configuration, ArtifactzExecutor.ServiceCall<T> call) throws ClientException, InterruptedException {
+        int percentile = configuration.getHedgePercentile();
+        if (percentile <= 0) {
+            return call.call();
+        }
+        earn(configuration.getHedgeBudgetPercent());
+        long delay = getDelayMillis(percentile);
+        long start = System.nanoTime();
+        if (delay < 0) {
+            T result = call.call();
+            record(System.nanoTime() - start);
+            return result;
+        }
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicReference<ClientException> firstError = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        Future<?> primary;
+        try {
+            primary = pool.submit(() -> attempt(call, winner, firstError, pending));
+        } catch (RejectedExecutionException e) {
+            return call.call();
+        }
+
+        Future<?> hedge = null;
+        try {
+            try {
+                T result = winner.get(delay, TimeUnit.MILLISECONDS);
+                record(System.nanoTime() - start);
+                return result;
+            } catch (TimeoutException e) {
+                if (ConcurrencyLimiter.tryAcquire()) {
+                    if (spend()) {
+                        hedge = hedge(call, winner, firstError, pending);
+                    }
+                    if (hedge == null) {
+                        ConcurrencyLimiter.cancel();
+                    }
+                }
+            }
+            T result = winner.get();
+            record(System.nanoTime() - start);
+            return result;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientException(cause.getMessage());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Starts the hedge, which returns the limiter permit taken for it once its call has returned.
+     *
+     * @return the hedge or {@code null} if it could not be started
+     */
+    private static <T> Future<?> hedge(ArtifactzExecutor.ServiceCall<T> call, CompletableFuture<T> winner, AtomicReference<ClientException> firstError, AtomicInteger pending) {
+        pending.incrementAndGet();
+        try {
+            Future<?> hedge = pool.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    if (attempt(call, winner, firstError, pending)) {
+                        hedgeWinCount.incrementAndGet();
+                    }
+                } finally {
+                    ConcurrencyLimiter.release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false);
+                }
+            });
+            hedgedCount.incrementAndGet();
+            return hedge;
+        } catch (RejectedExecutionException rejected) {
+            pending.decrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * @return whether this attempt completed the result
+     */
+    private static <T> boolean attempt(ArtifactzExecutor.ServiceCall<T> call, CompletableFuture<T> winner, AtomicReference<ClientException> firstError, AtomicInteger pending) {
+        try {
+            return winner.complete(call.call());
+        } catch (ClientException e) {
+            firstError.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            // cancelled by the winner
+        } catch (RuntimeException e) {
+            firstError.compareAndSet(null, new ClientException(String.valueOf(e.getMessage())));
+        }
+        if (pending.decrementAndGet() == 0) {
+            ClientException error = firstError.get();
+            winner.completeExceptionally(error != null ? error : new ClientException("The retrieve call has been cancelled"));
+        }
+        return false;
+    }
+
+    private static synchronized void earn(int budgetPercent) {
+        budget = Math.min(budget + budgetPercent / 100.0, MAX_BUDGET);
+    }
+
+    private static synchronized boolean spend() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    private static synchronized void record(long nanos) {
+        latencies[latencyIndex] = TimeUnit.NANOSECONDS.toMillis(nanos);
+        latencyIndex = (latencyIndex + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    /**
+     * @return the given percentile of the recent retrieve latencies, or {@code -1} until enough latencies are recorded
+     */
+    static synchronized long getDelayMillis(int percentile) {
+        if (latencyCount < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * Math.min(percentile, 100) / 100)];
+    }
+
+    public static long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    public static long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+}
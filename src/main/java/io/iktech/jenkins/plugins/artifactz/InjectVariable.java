@@ -4,6 +4,10 @@ import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.EnvironmentContributingAction;
 
+/**
+ * Variable contributed by the builds recorded before the {@link ArtifactzEnvironmentAction} was introduced, kept so
+ * that their environment does not change.
+ */
 public class InjectVariable implements EnvironmentContributingAction {
     private String key;
     private String value;
@@ -0,0 +1,49 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.EnvVars;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Expands the variable references in the fields of a build step, resolving the environment of the run only when the
+ * first field referencing a variable is expanded, and only once.
+ *
+ * {@link Run#getEnvironment(TaskListener)} runs every environment contributor and node property, which is wasted
+ * when the step is configured with static values only.
+ */
+public final class LazyEnvironment {
+    private final Run<?, ?> run;
+
+    private final TaskListener listener;
+
+    private EnvVars env;
+
+    public LazyEnvironment(@Nonnull Run<?, ?> run, @Nonnull TaskListener listener) {
+        this.run = run;
+        this.listener = listener;
+    }
+
+    /**
+     * @param value the field value
+     * @return the value with the variable references replaced, or the value itself if it references no variables
+     */
+    public String expand(String value) throws IOException, InterruptedException {
+        if (value == null || value.indexOf('$') < 0) {
+            return value;
+        }
+        if (this.env == null) {
+            this.env = this.run.getEnvironment(this.listener);
+        }
+        return this.env.expand(value);
+    }
+
+    /**
+     * @return whether the environment of the run has been resolved
+     */
+    public boolean isResolved() {
+        return this.env != null;
+    }
+}
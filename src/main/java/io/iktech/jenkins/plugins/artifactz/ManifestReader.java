@@ -0,0 +1,94 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a JSON or YAML publish manifest where it is stored, normally on the agent, and hands the entries over to the
+ * {@link Sink} in chunks.
+ *
+ * The manifest is parsed as a stream, one entry at a time. The sink is called synchronously, so no more than one chunk
+ * is held on either side of the channel. The manifest is either a list of artifacts or an object with the list under
+ * the {@code artifacts} key. YAML is expected when the file name ends with {@code .yaml} or {@code .yml}.
+ */
+public class ManifestReader extends MasterToSlaveFileCallable<Integer> {
+    private static final long serialVersionUID = 3306917283563818532L;
+
+    public static final int CHUNK_SIZE = 100;
+
+    private final Sink sink;
+
+    public ManifestReader(Sink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public Integer invoke(File file, VirtualChannel channel) throws IOException, InterruptedException {
+        String fileName = file.getName().toLowerCase(Locale.ENGLISH);
+        JsonFactory factory = fileName.endsWith(".yaml") || fileName.endsWith(".yml") ? new YAMLFactory() : new JsonFactory();
+        ObjectMapper mapper = new ObjectMapper(factory);
+
+        int count = 0;
+        try (InputStream in = Files.newInputStream(file.toPath()); JsonParser parser = factory.createParser(in)) {
+            parser.setCodec(mapper);
+            seekArtifacts(parser, file);
+
+            List<ManifestEntry> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(parser.readValueAs(ManifestEntry.class));
+                count++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    this.sink.accept(chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected " + parser.currentToken() + " in the artifact list of the manifest " + file);
+            }
+            if (!chunk.isEmpty()) {
+                this.sink.accept(chunk);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Positions the parser at the start of the artifact list.
+     */
+    private static void seekArtifacts(JsonParser parser, File file) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "artifacts".equals(field)) {
+                    return;
+                }
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("The manifest " + file + " does not contain a list of artifacts");
+    }
+
+    /**
+     * Receives the manifest entries on the controller.
+     */
+    public interface Sink {
+        void accept(List<ManifestEntry> entries) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,425 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.util.AtomicFileWriter;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.exception.ClientException;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue of the push and publish operations deferred while the Artifactz service is unavailable.
+ *
+ * The operations are appended to a log file under {@code JENKINS_HOME}, one JSON record per line, and are delivered
+ * in the order they were queued, a batch per run of this periodic work. Delivered and deleted operations are recorded
+ * as removal records, the log is compacted once most of its records are obsolete. When the service is still
+ * unavailable the delivery backs off exponentially, when the service rejects an operation the entry is parked, and it
+ * holds back the later operations on the same artifact until it is retried or deleted from the management page. The
+ * parking and the retries are logged as well, so a parked entry stays parked across the controller restarts.
+ */
+@Extension
+public class Outbox extends AsyncPeriodicWork {
+    private static final Logger logger = LoggerFactory.getLogger(Outbox.class);
+
+    static final String FILE_NAME = "artifactz-outbox.log";
+
+    static final int BATCH_SIZE = 50;
+
+    private static final long MIN_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final int COMPACTION_THRESHOLD = 100;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<Long, OutboxEntry> entries = new LinkedHashMap<>();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private boolean loaded;
+
+    private long lastId;
+
+    private int obsoleteRecords;
+
+    private int failedDrains;
+
+    private long nextAttemptAt;
+
+    public Outbox() {
+        super("Artifactz outbox");
+    }
+
+    public static Outbox get() {
+        return ExtensionList.lookupSingleton(Outbox.class);
+    }
+
+    /**
+     * Checks whether the service failure allows deferring the operation: the circuit is open or the error is one of the
+     * retryable errors.
+     */
+    static boolean isUnavailable(ConfigurationSnapshot configuration, ClientException e) {
+        return e instanceof CircuitBreaker.OpenException || configuration.getRetryPolicy().isRetryable(e);
+    }
+
+    /**
+     * Appends the operation to the outbox.
+     *
+     * @param entry the operation
+     * @throws IOException if the operation cannot be written to the disk
+     */
+    public synchronized void add(OutboxEntry entry) throws IOException {
+        load();
+        entry.setId(++this.lastId);
+        append(addRecord(entry));
+        this.entries.put(entry.getId(), entry);
+    }
+
+    /**
+     * @param name the artifact name
+     * @return whether there are queued operations on the artifact, the later ones have to be queued after them
+     */
+    public synchronized boolean hasPending(String name) {
+        load();
+        for (OutboxEntry entry : this.entries.values()) {
+            if (entry.getName() != null && entry.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized List<OutboxEntry> getEntries() {
+        load();
+        return new ArrayList<>(this.entries.values());
+    }
+
+    public synchronized int getSize() {
+        load();
+        return this.entries.size();
+    }
+
+    public long getDeliveredCount() {
+        return this.deliveredCount.get();
+    }
+
+    /** @return the time of the next delivery attempt, or {@code null} if it is not delayed */
+    @CheckForNull
+    public synchronized Date getNextAttempt() {
+        return this.nextAttemptAt > System.currentTimeMillis() ? new Date(this.nextAttemptAt) : null;
+    }
+
+    /**
+     * Drops the operation without delivering it.
+     *
+     * @param id the entry id
+     * @return whether the entry existed
+     * @throws IOException if the removal cannot be written to the disk
+     */
+    public synchronized boolean remove(long id) throws IOException {
+        load();
+        OutboxEntry entry = this.entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        append(idRecord("remove", id));
+        this.entries.remove(id);
+        // the park record of the entry is obsolete too
+        this.obsoleteRecords += entry.isParked() ? 3 : 2;
+        compactIfObsolete();
+        return true;
+    }
+
+    /**
+     * Releases the parked entries and cancels the backoff, so the next run delivers the queued operations.
+     *
+     * @throws IOException if the release cannot be written to the disk
+     */
+    public synchronized void retryNow() throws IOException {
+        load();
+        for (OutboxEntry entry : this.entries.values()) {
+            if (entry.isParked()) {
+                append(idRecord("unpark", entry.getId()));
+                entry.unpark();
+                this.obsoleteRecords += 2;
+            }
+        }
+        this.failedDrains = 0;
+        this.nextAttemptAt = 0;
+        compactIfObsolete();
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return MIN_BACKOFF_MILLIS;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        drain(listener);
+    }
+
+    /**
+     * Delivers the next batch of the queued operations, unless the delivery is backing off.
+     *
+     * @param listener the listener the delivery is reported to
+     * @return the number of the delivered operations
+     */
+    public int drain(TaskListener listener) throws IOException, InterruptedException {
+        List<OutboxEntry> batch = new ArrayList<>();
+        synchronized (this) {
+            load();
+            if (System.currentTimeMillis() < this.nextAttemptAt) {
+                return 0;
+            }
+            Set<String> held = new HashSet<>();
+            for (OutboxEntry entry : this.entries.values()) {
+                if (entry.isParked() || held.contains(entry.getName())) {
+                    held.add(entry.getName());
+                } else if (batch.size() < BATCH_SIZE) {
+                    batch.add(entry);
+                }
+            }
+        }
+
+        ConfigurationSnapshot configuration = Configuration.snapshot();
+        int delivered = 0;
+        Set<String> held = new HashSet<>();
+        for (OutboxEntry entry : batch) {
+            if (held.contains(entry.getName())) {
+                continue;
+            }
+            try {
+                deliver(configuration, listener, entry);
+            } catch (ClientException e) {
+                boolean unavailable = isUnavailable(configuration, e);
+                synchronized (this) {
+                    entry.failed(e.getMessage(), !unavailable);
+                    if (!unavailable) {
+                        append(parkRecord(entry));
+                    } else {
+                        this.failedDrains++;
+                        this.nextAttemptAt = System.currentTimeMillis() + getBackoffMillis(this.failedDrains);
+                    }
+                }
+                listener.getLogger().println("Could not deliver the " + entry.getOperation() + " of artifact '" + entry.getName() + "': " + e.getMessage());
+                if (unavailable) {
+                    // keep the order, the rest of the batch goes after this entry
+                    return delivered;
+                }
+                held.add(entry.getName());
+                continue;
+            }
+            remove(entry.getId());
+            this.deliveredCount.incrementAndGet();
+            delivered++;
+        }
+        synchronized (this) {
+            this.failedDrains = 0;
+        }
+        return delivered;
+    }
+
+    static long getBackoffMillis(int failedDrains) {
+        return Math.min(MIN_BACKOFF_MILLIS << Math.min(failedDrains - 1, 30), MAX_BACKOFF_MILLIS);
+    }
+
+    private void deliver(ConfigurationSnapshot configuration, TaskListener listener, OutboxEntry entry) throws ClientException, InterruptedException {
+        String token = getToken(entry);
+        if (token == null) {
+            throw new ClientException("Could not find the credentials '" + entry.getCredentialsId() + "' for the job '" + entry.getJobName() + "'");
+        }
+
+        try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(configuration, listener, token)) {
+            ServiceClient client = lease.getClient();
+            if (entry.getOperation() == OutboxEntry.Operation.PUSH) {
+                // pushing an explicit version is idempotent
+                configuration.getRetryPolicy().write(listener, entry.getVersion() != null && !entry.getVersion().isEmpty(),
+                        ServiceHelper.withFeedback(listener, () -> client.pushArtifact(entry.getStage(), entry.getName(), entry.getVersion())));
+                VersionCache.invalidate(configuration, token, entry.getName());
+            } else {
+                configuration.getRetryPolicy().write(listener, true, ServiceHelper.withFeedback(listener, () -> {
+                    client.publishArtifact(entry.getStage(), entry.getStageDescription(), entry.getName(), entry.getDescription(),
+                            entry.getFlow(), entry.getType(), entry.getGroupId(), entry.getArtifactId(), entry.getVersion());
+                    return null;
+                }));
+                VersionCache.put(configuration, token, entry.getStage(), entry.getName(), entry.getVersion());
+            }
+        }
+        logger.info("Delivered the deferred {} of artifact '{}' from {}", entry.getOperation(), entry.getName(), entry.getRunId());
+    }
+
+    /**
+     * Resolves the token in the context of the build which queued the operation, or of its job if the build is gone.
+     * If the job is gone too the token is not resolved, so the entry is parked rather than delivered with credentials
+     * the job could not use.
+     */
+    @CheckForNull
+    private static String getToken(OutboxEntry entry) {
+        if (entry.getCredentialsId() == null) {
+            return null;
+        }
+        Run<?, ?> run = entry.getRunId() != null ? Run.fromExternalizableId(entry.getRunId()) : null;
+        if (run != null) {
+            return CredentialsCache.get().getToken(run, entry.getCredentialsId());
+        }
+        Item item = entry.getJobName() != null ? Jenkins.get().getItemByFullName(entry.getJobName()) : null;
+        if (item == null) {
+            return null;
+        }
+        StringCredentials credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(StringCredentials.class, item, ACL.SYSTEM, Collections.emptyList()),
+                CredentialsMatchers.withId(entry.getCredentialsId()));
+        return credentials != null ? credentials.getSecret().getPlainText() : null;
+    }
+
+    private File getFile() {
+        return new File(Jenkins.get().getRootDir(), FILE_NAME);
+    }
+
+    private static JsonNode addRecord(OutboxEntry entry) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("action", "add");
+        record.set("entry", mapper.valueToTree(entry));
+        return record;
+    }
+
+    private static JsonNode parkRecord(OutboxEntry entry) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("action", "park");
+        record.put("id", entry.getId());
+        record.put("error", entry.getLastError());
+        return record;
+    }
+
+    private static JsonNode idRecord(String action, long id) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("action", action);
+        record.put("id", id);
+        return record;
+    }
+
+    private void append(JsonNode record) throws IOException {
+        Files.write(getFile().toPath(), (mapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+
+    /**
+     * Replays the log, once.
+     */
+    private void load() {
+        if (this.loaded) {
+            return;
+        }
+        this.loaded = true;
+        File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonNode record;
+                try {
+                    record = mapper.readTree(line);
+                } catch (IOException e) {
+                    // the last record may be cut short by a crash
+                    logger.warn("Skipping a corrupted outbox record: {}", line);
+                    continue;
+                }
+                String action = record.path("action").asText();
+                if ("add".equals(action)) {
+                    OutboxEntry entry = mapper.treeToValue(record.get("entry"), OutboxEntry.class);
+                    this.entries.put(entry.getId(), entry);
+                    this.lastId = Math.max(this.lastId, entry.getId());
+                    continue;
+                }
+                OutboxEntry entry = this.entries.get(record.path("id").asLong());
+                if ("park".equals(action)) {
+                    if (entry != null) {
+                        entry.park(record.path("error").asText(null));
+                    }
+                } else if ("unpark".equals(action)) {
+                    if (entry != null) {
+                        entry.unpark();
+                    }
+                    this.obsoleteRecords += 2;
+                } else if ("remove".equals(action)) {
+                    if (entry != null) {
+                        this.entries.remove(entry.getId());
+                        this.obsoleteRecords += entry.isParked() ? 3 : 2;
+                    }
+                } else {
+                    logger.warn("Skipping an unknown outbox record: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not read the Artifactz outbox", e);
+        }
+        if (!this.entries.isEmpty()) {
+            logger.info("Loaded {} deferred Artifactz operations", this.entries.size());
+        }
+    }
+
+    private void compactIfObsolete() throws IOException {
+        if (this.obsoleteRecords >= COMPACTION_THRESHOLD && this.obsoleteRecords > this.entries.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with the pending entries only, and the parking of the parked ones.
+     */
+    private void compact() throws IOException {
+        AtomicFileWriter writer = new AtomicFileWriter(getFile().toPath(), StandardCharsets.UTF_8);
+        try {
+            for (OutboxEntry entry : this.entries.values()) {
+                writer.write(mapper.writeValueAsString(addRecord(entry)));
+                writer.write("\n");
+                if (entry.isParked()) {
+                    writer.write(mapper.writeValueAsString(parkRecord(entry)));
+                    writer.write("\n");
+                }
+            }
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+        this.obsoleteRecords = 0;
+    }
+}
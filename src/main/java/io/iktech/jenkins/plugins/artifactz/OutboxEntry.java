@@ -0,0 +1,233 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import hudson.model.Run;
+
+import java.util.Date;
+
+/**
+ * Push or publish operation waiting in the {@link Outbox} for the service to become available.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OutboxEntry {
+    public enum Operation {
+        PUSH,
+        PUBLISH
+    }
+
+    private long id;
+    private Operation operation;
+    private long createdAt;
+    private String runId;
+    private String jobName;
+    private String credentialsId;
+    private String stage;
+    private String stageDescription;
+    private String name;
+    private String description;
+    private String type;
+    private String flow;
+    private String groupId;
+    private String artifactId;
+    private String version;
+
+    private transient int attempts;
+    private transient String lastError;
+    private transient boolean parked;
+
+    static OutboxEntry push(Run<?, ?> run, String credentialsId, String stage, String name, String version) {
+        OutboxEntry entry = new OutboxEntry(Operation.PUSH, run, credentialsId);
+        entry.stage = stage;
+        entry.name = name;
+        entry.version = version;
+        return entry;
+    }
+
+    static OutboxEntry publish(Run<?, ?> run, String credentialsId, String stage, String stageDescription, String name,
+                               String description, String flow, String type, String groupId, String artifactId, String version) {
+        OutboxEntry entry = new OutboxEntry(Operation.PUBLISH, run, credentialsId);
+        entry.stage = stage;
+        entry.stageDescription = stageDescription;
+        entry.name = name;
+        entry.description = description;
+        entry.flow = flow;
+        entry.type = type;
+        entry.groupId = groupId;
+        entry.artifactId = artifactId;
+        entry.version = version;
+        return entry;
+    }
+
+    @SuppressWarnings("unused") // used by Jackson
+    public OutboxEntry() {
+    }
+
+    private OutboxEntry(Operation operation, Run<?, ?> run, String credentialsId) {
+        this.operation = operation;
+        this.createdAt = System.currentTimeMillis();
+        this.runId = run.getExternalizableId();
+        this.jobName = run.getParent().getFullName();
+        this.credentialsId = credentialsId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public Date getCreated() {
+        return new Date(createdAt);
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    public void setCredentialsId(String credentialsId) {
+        this.credentialsId = credentialsId;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public String getStageDescription() {
+        return stageDescription;
+    }
+
+    public void setStageDescription(String stageDescription) {
+        this.stageDescription = stageDescription;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    public void setFlow(String flow) {
+        this.flow = flow;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /** @return the number of the failed delivery attempts since the controller start */
+    @JsonIgnore
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @JsonIgnore
+    public String getLastError() {
+        return lastError;
+    }
+
+    /** @return whether the service rejected the operation, the entry waits for an administrator to retry or delete it */
+    @JsonIgnore
+    public boolean isParked() {
+        return parked;
+    }
+
+    void failed(String error, boolean park) {
+        this.attempts++;
+        this.lastError = error;
+        this.parked = park;
+    }
+
+    /**
+     * Restores the parking replayed from the outbox log.
+     */
+    void park(String error) {
+        this.lastError = error;
+        this.parked = true;
+    }
+
+    void unpark() {
+        this.parked = false;
+    }
+}
@@ -0,0 +1,174 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Artifactz calls started by the steps running in the asynchronous mode, keyed by the run and the handle returned
+ * by the step. The {@code waitForArtifactz} step waits on them.
+ *
+ * When the run completes, the failures of the calls no {@code waitForArtifactz} step has waited on are printed to the
+ * build log and fail the run. The calls of a run are forgotten once the run is finalized, the calls still in progress
+ * are left to complete in the background.
+ */
+public final class PendingCalls {
+    private static final Logger logger = LoggerFactory.getLogger(PendingCalls.class);
+
+    private static final Map<String, Map<String, Call>> calls = new HashMap<>();
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private PendingCalls() {
+    }
+
+    /**
+     * Registers the call.
+     *
+     * @param run the run making the call
+     * @param description the description of the call used in the messages, e.g. "push of artifact 'x'"
+     * @param result the call result
+     * @return the handle of the call
+     */
+    public static String add(@Nonnull Run<?, ?> run, String description, CompletableFuture<?> result) {
+        String handle = "artifactz-" + sequence.incrementAndGet();
+        synchronized (calls) {
+            calls.computeIfAbsent(run.getExternalizableId(), k -> new LinkedHashMap<>()).put(handle, new Call(description, result));
+        }
+        return handle;
+    }
+
+    /**
+     * @param run the run
+     * @param handles the handles of the calls, all the calls of the run if {@code null} or empty
+     * @return the calls keyed by their handles, in the order they were started
+     * @throws AbortException if a handle is not known for the run
+     */
+    public static Map<String, Call> get(@Nonnull Run<?, ?> run, @CheckForNull List<String> handles) throws AbortException {
+        synchronized (calls) {
+            Map<String, Call> all = calls.getOrDefault(run.getExternalizableId(), new LinkedHashMap<>());
+            if (handles == null || handles.isEmpty()) {
+                all.values().forEach(Call::claim);
+                return new LinkedHashMap<>(all);
+            }
+            Map<String, Call> result = new LinkedHashMap<>();
+            for (String handle : handles) {
+                Call call = all.get(handle);
+                if (call == null) {
+                    throw new AbortException("Unknown Artifactz call handle '" + handle + "'");
+                }
+                result.put(handle, call);
+            }
+            result.values().forEach(Call::claim);
+            return result;
+        }
+    }
+
+    public static int getSize() {
+        synchronized (calls) {
+            return calls.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+
+    /**
+     * Reports the calls of the completed run that no {@code waitForArtifactz} step has waited on.
+     */
+    static void report(Run<?, ?> run, TaskListener listener) {
+        Map<String, Call> unclaimed = new LinkedHashMap<>();
+        synchronized (calls) {
+            calls.getOrDefault(run.getExternalizableId(), new LinkedHashMap<>()).forEach((handle, call) -> {
+                if (!call.claimed) {
+                    unclaimed.put(handle, call);
+                }
+            });
+        }
+
+        boolean failed = false;
+        for (Call call : unclaimed.values()) {
+            if (!call.result.isDone()) {
+                listener.getLogger().println("The " + call.getDescription() + " is still in progress, its result is not reported");
+                continue;
+            }
+            try {
+                call.result.get();
+            } catch (ExecutionException | CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                listener.error("The " + call.getDescription() + " failed: " + cause.getMessage());
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                listener.error("The " + call.getDescription() + " failed: " + e.getMessage());
+                failed = true;
+            }
+        }
+        if (failed) {
+            try {
+                run.setResult(Result.FAILURE);
+            } catch (IllegalStateException e) {
+                // a pipeline run is still building when the listeners are notified of its completion, other run types
+                // are not, but only the pipeline steps run in the asynchronous mode
+                logger.warn("Could not fail {} after its asynchronous Artifactz calls failed", run, e);
+            }
+        }
+    }
+
+    static void forget(Run<?, ?> run) {
+        synchronized (calls) {
+            calls.remove(run.getExternalizableId());
+        }
+    }
+
+    public static final class Call {
+        private final String description;
+        private final CompletableFuture<?> result;
+        private volatile boolean claimed;
+
+        Call(String description, CompletableFuture<?> result) {
+            this.description = description;
+            this.result = result;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public CompletableFuture<?> getResult() {
+            return result;
+        }
+
+        void claim() {
+            this.claimed = true;
+        }
+    }
+
+    @Extension
+    public static final class Cleanup extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @Nonnull TaskListener listener) {
+            report(run, listener);
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            forget(run);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.google.common.collect.ImmutableSet;
 import hudson.AbortException;
 import hudson.Extension;
@@ -8,15 +7,14 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import io.artifactz.client.ServiceClient;
 import io.artifactz.client.exception.ClientException;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.jenkinsci.plugins.workflow.steps.*;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Set;
 
@@ -31,6 +29,8 @@ public class PublishArtifactStep extends Step {
     private String flow;
     private String stageDescription;
     private String version;
+    private boolean deferred;
+    private boolean async;
 
     @DataBoundConstructor
     public PublishArtifactStep(String name, String description, String type, String flow, String stage, String stageDescription, String groupId, String artifactId, String version) {
@@ -126,12 +126,38 @@ public class PublishArtifactStep extends Step {
         this.stageDescription = stageDescription;
     }
 
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @param deferred whether the publish is queued in the {@link Outbox} instead of failing the build when the
+     *                 service is unavailable
+     */
+    @DataBoundSetter
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @param async whether the step returns the handle of the publish straight away, the publish result is returned by
+     *              the {@code waitForArtifactz} step
+     */
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new PublishArtifactStep.Execution(this.name, this.description, this.type, this.flow, this.stage, this.stageDescription, this.groupId, this.artifactId, this.version, context);
+        return new PublishArtifactStep.Execution(this.name, this.description, this.type, this.flow, this.stage, this.stageDescription, this.groupId, this.artifactId, this.version, this.deferred, this.async, context);
     }
 
-    private static final class Execution extends SynchronousNonBlockingStepExecution<Boolean> {
+    private static final class Execution extends ArtifactzStepExecution<Boolean> {
         private static final long serialVersionUID = 4829381492818317576L;
 
         private final String name;
@@ -143,8 +169,10 @@ public class PublishArtifactStep extends Step {
         private final String flow;
         private final String stageDescription;
         private final String version;
+        private final boolean deferred;
+        private final boolean async;
 
-        Execution(String name, String description, String type, String flow, String stage, String stageDescription, String groupId, String artifactId, String version, StepContext context) {
+        Execution(String name, String description, String type, String flow, String stage, String stageDescription, String groupId, String artifactId, String version, boolean deferred, boolean async, StepContext context) {
             super(context);
             this.name = name;
             this.description = description;
@@ -155,40 +183,67 @@ public class PublishArtifactStep extends Step {
             this.groupId = groupId;
             this.artifactId = artifactId;
             this.version = version;
+            this.deferred = deferred;
+            this.async = async;
         }
 
-        @Override protected Boolean run() throws Exception {
-            Run<?, ?> run = getContext().get(Run.class);
-            TaskListener taskListener = getContext().get(TaskListener.class);
+        @Override
+        protected boolean isAsync() {
+            return this.async;
+        }
+
+        @Override
+        protected String describe() {
+            return "publish of artifact '" + this.name + "'";
+        }
+
+        @Override protected Boolean run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            ConfigurationSnapshot configuration = Configuration.snapshot();
 
             PrintStream l = taskListener.getLogger();
             l.println("Pushing artifact '" + this.name + "' at the stage '" + this.stage + "'");
 
-            String credentialsId = Configuration.get().getCredentialsId();
+            String credentialsId = configuration.getCredentialsId();
             if (credentialsId == null) {
-                ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
+                interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
                 throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
             }
 
-            StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+            String token = CredentialsCache.get().getToken(run, credentialsId);
             if (token == null) {
-                ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
+                interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
                 throw new AbortException("Could not find specified credentials. Cannot continue.");
             }
 
+            if (this.deferred && Outbox.get().hasPending(this.name)) {
+                defer(run, taskListener, credentialsId, "earlier operations on the artifact are queued");
+                return true;
+            }
+
             try {
-                ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
-                client.publishArtifact(this.stage, this.stageDescription, this.name, this.description, this.flow, this.type, this.groupId, this.artifactId, this.version);
+                configuration.getRetryPolicy().write(taskListener, true, () -> ServiceHelper.call(configuration, taskListener, token, workspace,
+                        new AgentServiceCall.Publish(this.stage, this.stageDescription, this.name, this.description, this.flow, this.type, this.groupId, this.artifactId, this.version)));
+                VersionCache.put(configuration, token, this.stage, this.name, this.version);
                 taskListener.getLogger().println("Successfully published artifact");
             } catch (ClientException e) {
+                if (this.deferred && Outbox.isUnavailable(configuration, e)) {
+                    defer(run, taskListener, credentialsId, e.getMessage());
+                    return true;
+                }
                 logger.error("Error while publishing artifact", e);
                 String errorMessage = "Error while publishing artifact: " + e.getMessage();
-                ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                interruptExecution(run, taskListener, errorMessage);
                 throw new AbortException(errorMessage);
             }
 
             return true;
         }
+
+        private void defer(Run<?, ?> run, TaskListener taskListener, String credentialsId, String reason) throws IOException {
+            Outbox.get().add(OutboxEntry.publish(run, credentialsId, this.stage, this.stageDescription, this.name,
+                    this.description, this.flow, this.type, this.groupId, this.artifactId, this.version));
+            taskListener.getLogger().println("Deferred the publish of artifact '" + this.name + "': " + reason);
+        }
     }
 
     @Extension
@@ -0,0 +1,209 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.artifactz.client.exception.ClientException;
+import org.jenkinsci.plugins.workflow.steps.*;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Publishes the artifacts listed in a JSON or YAML manifest stored in the workspace.
+ *
+ * The manifest is read on the agent by the {@link ManifestReader} and the entries are published chunk by chunk with
+ * bounded concurrency, so the manifest is never held in the controller memory as a whole.
+ */
+public class PublishArtifactsStep extends Step {
+    private static final Logger logger = LoggerFactory.getLogger(PublishArtifactsStep.class);
+
+    private String manifest;
+    private String stage;
+    private String stageDescription;
+    private String flow;
+    private int parallelism = PushArtifactsStep.DEFAULT_PARALLELISM;
+    private boolean failOnError = true;
+
+    @DataBoundConstructor
+    public PublishArtifactsStep(String manifest, String stage) {
+        this.manifest = manifest;
+        this.stage = stage;
+    }
+
+    public String getManifest() {
+        return manifest;
+    }
+
+    @DataBoundSetter
+    public void setManifest(String manifest) {
+        this.manifest = manifest;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    @DataBoundSetter
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public String getStageDescription() {
+        return stageDescription;
+    }
+
+    @DataBoundSetter
+    public void setStageDescription(String stageDescription) {
+        this.stageDescription = stageDescription;
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    @DataBoundSetter
+    public void setFlow(String flow) {
+        this.flow = flow;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    @DataBoundSetter
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new PublishArtifactsStep.Execution(this, context);
+    }
+
+    private static final class Execution extends ArtifactzStepExecution<Map<String, String>> {
+        private static final long serialVersionUID = 8471390418652316223L;
+
+        private final String manifest;
+        private final String stage;
+        private final String stageDescription;
+        private final String flow;
+        private final int parallelism;
+        private final boolean failOnError;
+
+        Execution(PublishArtifactsStep step, StepContext context) {
+            super(context);
+            this.manifest = step.manifest;
+            this.stage = step.stage;
+            this.stageDescription = step.stageDescription;
+            this.flow = step.flow;
+            this.parallelism = step.parallelism;
+            this.failOnError = step.failOnError;
+        }
+
+        @Override protected Map<String, String> run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            ConfigurationSnapshot configuration = Configuration.snapshot();
+
+            PrintStream l = taskListener.getLogger();
+            l.println("Publishing the artifacts listed in '" + this.manifest + "' at the stage '" + this.stage + "'");
+
+            String credentialsId = configuration.getCredentialsId();
+            if (credentialsId == null) {
+                ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
+                throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
+            }
+
+            String token = CredentialsCache.get().getToken(run, credentialsId);
+            if (token == null) {
+                ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
+                throw new AbortException("Could not find specified credentials. Cannot continue.");
+            }
+
+            FilePath manifestFile = workspace.child(this.manifest);
+            if (!manifestFile.exists()) {
+                String errorMessage = "Manifest '" + this.manifest + "' does not exist in the workspace";
+                ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                throw new AbortException(errorMessage);
+            }
+
+            Map<String, String> published = new ConcurrentHashMap<>();
+            ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+            ManifestReader.Sink sink = entries -> FanOut.run(entries, Math.max(1, this.parallelism), entry -> {
+                String name = entry.getName();
+                if (name == null) {
+                    l.println("Skipping a manifest entry without the artifact name");
+                    errors.add("<unnamed>");
+                    return;
+                }
+                try {
+                    configuration.getRetryPolicy().write(taskListener, true, () -> ServiceHelper.call(configuration, taskListener, token, workspace,
+                            new AgentServiceCall.Publish(this.stage, this.stageDescription, name, entry.getDescription(),
+                                    entry.getFlow() != null ? entry.getFlow() : this.flow,
+                                    entry.getType(), entry.getGroupId(), entry.getArtifactId(), entry.getVersion())));
+                    VersionCache.put(configuration, token, this.stage, name, entry.getVersion());
+                    published.put(name, String.valueOf(entry.getVersion()));
+                } catch (ClientException | RuntimeException e) {
+                    logger.error("Error while publishing artifact version of '{}'", name, e);
+                    l.println("Error while publishing artifact '" + name + "': " + e.getMessage());
+                    errors.add(name);
+                }
+            });
+
+            int count = manifestFile.act(new ManifestReader(manifestFile.getChannel().export(ManifestReader.Sink.class, sink)));
+
+            if (!errors.isEmpty()) {
+                String errorMessage = "Failed to publish " + errors.size() + " of " + count + " artifacts: " + String.join(", ", errors);
+                if (this.failOnError) {
+                    ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                    throw new AbortException(errorMessage);
+                }
+                l.println(errorMessage);
+            } else {
+                l.println("Successfully published " + count + " artifact versions");
+            }
+            return published;
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "publishArtifacts";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Publish Artifact Versions From Manifest";
+        }
+
+        @Override
+        public boolean isMetaStep() {
+            return false;
+        }
+
+        @Override public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, FilePath.class, Launcher.class, TaskListener.class);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.google.common.collect.ImmutableSet;
 import hudson.AbortException;
 import hudson.Extension;
@@ -8,15 +7,14 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import io.artifactz.client.ServiceClient;
 import io.artifactz.client.exception.ClientException;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.jenkinsci.plugins.workflow.steps.*;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Set;
 
@@ -25,6 +23,8 @@ public class PushArtifactStep extends Step {
     private String stage;
     private String name;
     private String version;
+    private boolean deferred;
+    private boolean async;
 
     @DataBoundConstructor
     public PushArtifactStep(String stage, String name, String version, String variable) {
@@ -60,56 +60,116 @@ public class PushArtifactStep extends Step {
         this.version = version;
     }
 
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @param deferred whether the push is queued in the {@link Outbox} instead of failing the build when the service
+     *                 is unavailable, only applies to the pushes of an explicit version
+     */
+    @DataBoundSetter
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @param async whether the step returns the handle of the push straight away, the push result is returned by the
+     *              {@code waitForArtifactz} step
+     */
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new PushArtifactStep.Execution(stage, name, version, context);
+        return new PushArtifactStep.Execution(stage, name, version, deferred, async, context);
     }
 
-    private static final class Execution extends SynchronousNonBlockingStepExecution<String> {
+    private static final class Execution extends ArtifactzStepExecution<String> {
         private static final long serialVersionUID = 7351377150717079126L;
 
         private final String stage;
         private final String name;
         private final String version;
+        private final boolean deferred;
+        private final boolean async;
 
-        Execution(String stage, String name, String version, StepContext context) {
+        Execution(String stage, String name, String version, boolean deferred, boolean async, StepContext context) {
             super(context);
             this.stage = stage;
             this.name = name;
             this.version = version;
+            this.deferred = deferred;
+            this.async = async;
         }
 
-        @Override protected String run() throws Exception {
-            Run<?, ?> run = getContext().get(Run.class);
-            TaskListener taskListener = getContext().get(TaskListener.class);
+        @Override
+        protected boolean isAsync() {
+            return this.async;
+        }
+
+        @Override
+        protected String describe() {
+            return "push of artifact '" + this.name + "'";
+        }
+
+        @Override protected String run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            ConfigurationSnapshot configuration = Configuration.snapshot();
 
             PrintStream l = taskListener.getLogger();
             l.println("Pushing artifact '" + this.name + "' at the stage '" + this.stage + "'");
 
-            String credentialsId = Configuration.get().getCredentialsId();
+            String credentialsId = configuration.getCredentialsId();
             if (credentialsId == null) {
-                ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
+                interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
                 throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
             }
 
-            StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+            String token = CredentialsCache.get().getToken(run, credentialsId);
             if (token == null) {
-                ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
+                interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
                 throw new AbortException("Could not find specified credentials. Cannot continue.");
             }
 
+            // the outbox may deliver an operation twice, which would bump the version twice
+            boolean deferrable = this.deferred && this.version != null && !this.version.isEmpty();
+            if (this.deferred && !deferrable) {
+                l.println("The push of artifact '" + this.name + "' has no version, it is not deferred");
+            }
+            if (deferrable && Outbox.get().hasPending(this.name)) {
+                return defer(configuration, run, taskListener, credentialsId, token, "earlier operations on the artifact are queued");
+            }
+
             try {
-                ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
-                String v = client.pushArtifact(this.stage, this.name, this.version);
+                // pushing an explicit version is idempotent
+                String v = configuration.getRetryPolicy().write(taskListener, this.version != null && !this.version.isEmpty(),
+                        () -> ServiceHelper.call(configuration, taskListener, token, workspace, new AgentServiceCall.Push(this.stage, this.name, this.version)));
+                VersionCache.invalidate(configuration, token, this.name);
                 taskListener.getLogger().println("Successfully pushed artifact versions");
                 return v;
             } catch (ClientException e) {
+                if (deferrable && Outbox.isUnavailable(configuration, e)) {
+                    return defer(configuration, run, taskListener, credentialsId, token, e.getMessage());
+                }
                 logger.error("Error while pushing artifact version", e);
                 String errorMessage = "Error while pushing artifact version: " + e.getMessage();
-                ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                interruptExecution(run, taskListener, errorMessage);
                 throw new AbortException(errorMessage);
             }
         }
+
+        private String defer(ConfigurationSnapshot configuration, Run<?, ?> run, TaskListener taskListener, String credentialsId, String token, String reason) throws IOException {
+            Outbox.get().add(OutboxEntry.push(run, credentialsId, this.stage, this.name, this.version));
+            VersionCache.invalidate(configuration, token, this.name);
+            taskListener.getLogger().println("Deferred the push of artifact '" + this.name + "': " + reason);
+            return this.version;
+        }
     }
 
     @Extension
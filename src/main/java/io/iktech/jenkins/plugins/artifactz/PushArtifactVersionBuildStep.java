@@ -1,6 +1,5 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import hudson.*;
 import hudson.model.AbstractProject;
 import hudson.model.Run;
@@ -13,7 +12,6 @@ import io.artifactz.client.exception.ClientException;
 import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -76,40 +74,46 @@ public class PushArtifactVersionBuildStep extends Builder implements SimpleBuild
 
     @Override
     public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath filePath, @Nonnull Launcher launcher, @Nonnull TaskListener taskListener) throws InterruptedException, IOException {
-        final EnvVars env = run.getEnvironment(taskListener);
+        ConfigurationSnapshot configuration = Configuration.snapshot();
+        final LazyEnvironment env = new LazyEnvironment(run, taskListener);
         String expandedStage = env.expand(this.getStage());
         String expandedName = env.expand(this.getName());
         String expandedVersion = env.expand(this.getVersion());
 
         taskListener.getLogger().println("Pushing the artifact version '" + expandedVersion + "' at the stage '" + expandedStage + "'");
-        taskListener.getLogger().println("Performing PUT request to  to the Artifactor instance @" + Configuration.get().getServerUrl());
+        taskListener.getLogger().println("Performing PUT request to  to the Artifactor instance @" + configuration.getServerUrl());
         taskListener.getLogger().println("Artifact details:");
         taskListener.getLogger().println("  name: " + expandedName);
         taskListener.getLogger().println("  stage: " + expandedStage);
         taskListener.getLogger().println("  version: " + expandedVersion);
 
-        String credentialsId = Configuration.get().getCredentialsId();
+        String credentialsId = configuration.getCredentialsId();
         if (credentialsId == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
             throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
         }
 
-        StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+        String token = CredentialsCache.get().getToken(run, credentialsId);
         if (token == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
             throw new AbortException("Could not find specified credentials. Cannot continue.");
         }
 
         try {
-            ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
-            String pushedVersion;
-            if (!StringUtils.isEmpty(expandedVersion)) {
-                pushedVersion = client.pushArtifact(expandedStage, expandedName, expandedVersion);
-            } else {
-                pushedVersion = client.pushArtifact(expandedStage, expandedName);
-            }
+            String pushedVersion = ArtifactzExecutor.call(ServiceHelper.withFeedback(taskListener, () -> {
+                try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(configuration, taskListener, token)) {
+                    ServiceClient client = lease.getClient();
+                    if (!StringUtils.isEmpty(expandedVersion)) {
+                        // pushing an explicit version is idempotent
+                        return configuration.getRetryPolicy().write(taskListener, true, () -> client.pushArtifact(expandedStage, expandedName, expandedVersion));
+                    }
+                    // pushing without a version bumps it on every call, so it is not retried
+                    return configuration.getRetryPolicy().write(taskListener, false, () -> client.pushArtifact(expandedStage, expandedName));
+                }
+            }));
+            VersionCache.invalidate(configuration, token, expandedName);
             String variableName = !StringUtils.isEmpty(this.getVariableName()) ? this.getVariableName() : "ARTIFACTZ_VERSION";
-            run.addAction(new InjectVariable(variableName, pushedVersion));
+            ArtifactzEnvironmentAction.of(run).put(variableName, pushedVersion);
             taskListener.getLogger().println("Successfully pushed artifact version");
         } catch (ClientException e) {
             ServiceHelper.interruptExecution(run, taskListener, e.getMessage());
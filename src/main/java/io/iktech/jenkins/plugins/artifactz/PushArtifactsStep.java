@@ -0,0 +1,191 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.artifactz.client.exception.ClientException;
+import org.jenkinsci.plugins.workflow.steps.*;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes a number of artifacts at the same stage, running the pushes concurrently.
+ *
+ * Every entry of {@code names} is either an artifact name or {@code name=version}, like the {@code withEnv} step
+ * entries. A failed push does not prevent the other pushes; the failures are reported once all the pushes are done.
+ */
+public class PushArtifactsStep extends Step {
+    private static final Logger logger = LoggerFactory.getLogger(PushArtifactsStep.class);
+
+    public static final int DEFAULT_PARALLELISM = 10;
+
+    private String stage;
+    private List<String> names;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean failOnError = true;
+
+    @DataBoundConstructor
+    public PushArtifactsStep(String stage, List<String> names) {
+        this.stage = stage;
+        this.names = names;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    @DataBoundSetter
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    @DataBoundSetter
+    public void setNames(List<String> names) {
+        this.names = names;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    @DataBoundSetter
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new PushArtifactsStep.Execution(stage, names, parallelism, failOnError, context);
+    }
+
+    private static final class Execution extends ArtifactzStepExecution<Map<String, String>> {
+        private static final long serialVersionUID = -2169402758634218867L;
+
+        private final String stage;
+        private final List<String> names;
+        private final int parallelism;
+        private final boolean failOnError;
+
+        Execution(String stage, List<String> names, int parallelism, boolean failOnError, StepContext context) {
+            super(context);
+            this.stage = stage;
+            this.names = names;
+            this.parallelism = parallelism;
+            this.failOnError = failOnError;
+        }
+
+        @Override protected Map<String, String> run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            ConfigurationSnapshot configuration = Configuration.snapshot();
+
+            PrintStream l = taskListener.getLogger();
+            l.println("Pushing " + this.names.size() + " artifacts at the stage '" + this.stage + "'");
+
+            String credentialsId = configuration.getCredentialsId();
+            if (credentialsId == null) {
+                ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
+                throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
+            }
+
+            String token = CredentialsCache.get().getToken(run, credentialsId);
+            if (token == null) {
+                ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
+                throw new AbortException("Could not find specified credentials. Cannot continue.");
+            }
+
+            List<String[]> artifacts = new ArrayList<>();
+            for (String entry : this.names) {
+                int separator = entry.indexOf('=');
+                artifacts.add(separator < 0
+                        ? new String[] { entry.trim(), null }
+                        : new String[] { entry.substring(0, separator).trim(), entry.substring(separator + 1).trim() });
+            }
+
+            Map<String, String> pushed = new ConcurrentHashMap<>();
+            Map<String, String> errors = new ConcurrentHashMap<>();
+            FanOut.run(artifacts, Math.max(1, this.parallelism), artifact -> {
+                String name = artifact[0];
+                try {
+                    // pushing an explicit version is idempotent
+                    String v = configuration.getRetryPolicy().write(taskListener, artifact[1] != null && !artifact[1].isEmpty(),
+                            () -> ServiceHelper.call(configuration, taskListener, token, workspace, new AgentServiceCall.Push(this.stage, name, artifact[1])));
+                    VersionCache.invalidate(configuration, token, name);
+                    l.println("Pushed artifact '" + name + "', version " + v);
+                    pushed.put(name, v);
+                } catch (ClientException | RuntimeException e) {
+                    logger.error("Error while pushing artifact version of '{}'", name, e);
+                    l.println("Error while pushing artifact '" + name + "': " + e.getMessage());
+                    errors.put(name, String.valueOf(e.getMessage()));
+                }
+            });
+
+            // keep the order of the step arguments
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String[] artifact : artifacts) {
+                if (pushed.containsKey(artifact[0])) {
+                    result.put(artifact[0], pushed.get(artifact[0]));
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                String errorMessage = "Failed to push " + errors.size() + " of " + artifacts.size() + " artifacts: " + String.join(", ", errors.keySet());
+                if (this.failOnError) {
+                    ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                    throw new AbortException(errorMessage);
+                }
+                l.println(errorMessage);
+            } else {
+                l.println("Successfully pushed artifact versions");
+            }
+            return result;
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "pushArtifacts";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Push Artifact Versions";
+        }
+
+        @Override
+        public boolean isMetaStep() {
+            return false;
+        }
+
+        @Override public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, FilePath.class, Launcher.class, TaskListener.class);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hudson.*;
 import hudson.model.AbstractProject;
 import hudson.model.Run;
@@ -9,13 +7,9 @@ import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.FormValidation;
-import io.artifactz.client.ServiceClient;
 import io.artifactz.client.exception.ClientException;
-import io.artifactz.client.model.Stage;
-import io.artifactz.client.model.Version;
 import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -27,16 +21,22 @@ import javax.servlet.ServletException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 public class RetrieveArtifactsBuildStep extends Builder implements SimpleBuildStep {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
     private static Logger logger = LoggerFactory.getLogger(RetrieveArtifactsBuildStep.class);
 
     private List<Name> names;
     private String stage;
+    private String stages;
     private String variableName;
+    private String variablePrefix;
+    private Boolean cache;
+    private StaleMode staleMode;
+    private Integer maxStaleSeconds;
 
     @DataBoundConstructor
     public RetrieveArtifactsBuildStep(List<Name> names,
@@ -67,6 +67,31 @@ public class RetrieveArtifactsBuildStep extends Builder implements SimpleBuildSt
         this.stage = stage;
     }
 
+    public String getStages() {
+        return stages;
+    }
+
+    /**
+     * Sets the comma separated stages to retrieve the versions at instead of the single {@link #getStage() stage}.
+     * The variable then holds the versions keyed by the stage name.
+     */
+    @DataBoundSetter
+    public void setStages(String stages) {
+        this.stages = stages;
+    }
+
+    private List<String> getStageList() {
+        List<String> result = new ArrayList<>();
+        if (this.stages != null) {
+            for (String stage : this.stages.split(",")) {
+                if (!stage.trim().isEmpty()) {
+                    result.add(stage.trim());
+                }
+            }
+        }
+        return result;
+    }
+
     public String getVariableName() {
         return variableName;
     }
@@ -76,48 +101,140 @@ public class RetrieveArtifactsBuildStep extends Builder implements SimpleBuildSt
         this.variableName = variableName;
     }
 
+    public String getVariablePrefix() {
+        return variablePrefix;
+    }
+
+    /**
+     * @param variablePrefix when set, every version is exposed as a separate variable named after the prefix and the
+     *                       artifact, instead of the single JSON variable
+     */
+    @DataBoundSetter
+    public void setVariablePrefix(String variablePrefix) {
+        this.variablePrefix = variablePrefix;
+    }
+
+    public boolean isCache() {
+        return cache == null || cache;
+    }
+
+    @DataBoundSetter
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    public StaleMode getStaleMode() {
+        return staleMode != null ? staleMode : StaleMode.NONE;
+    }
+
+    @DataBoundSetter
+    public void setStaleMode(StaleMode staleMode) {
+        this.staleMode = staleMode;
+    }
+
+    public int getMaxStaleSeconds() {
+        return maxStaleSeconds != null ? maxStaleSeconds : VersionRetriever.DEFAULT_MAX_STALE_SECONDS;
+    }
+
+    @DataBoundSetter
+    public void setMaxStaleSeconds(int maxStaleSeconds) {
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+
     @Override
     public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath filePath, @Nonnull Launcher launcher, @Nonnull TaskListener taskListener) throws InterruptedException, IOException {
+        ConfigurationSnapshot configuration = Configuration.snapshot();
         PrintStream l = taskListener.getLogger();
-        l.println("Retrieving versions of the following artifacts at the stage '" + this.stage + "'");
+        List<String> stageList = this.getStageList();
+        l.println("Retrieving versions of the following artifacts at the " + (!stageList.isEmpty() ? "stages '" + String.join("', '", stageList) + "'" : "stage '" + this.stage + "'"));
 
-        String credentialsId = Configuration.get().getCredentialsId();
+        String credentialsId = configuration.getCredentialsId();
         if (credentialsId == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
             throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
         }
 
-        StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+        String token = CredentialsCache.get().getToken(run, credentialsId);
         if (token == null) {
             ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
             throw new AbortException("Could not find specified credentials. Cannot continue.");
         }
 
         try {
-            ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
             List<String> artifacts = new ArrayList<>();
             for (Name name : this.getNames()) {
                 artifacts.add(name.getName());
             }
 
-            Stage stage = client.retrieveVersions(this.getStage(), artifacts.toArray(new String[0]));
-            logger.info("Content has been converted to the object");
-            EnvVars envVars = run.getEnvironment(taskListener);
-            String content;
-            if (stage.getArtifacts() != null) {
-                logger.info("There are artifacts in the response, converting the result to the hashmap");
-                content = objectMapper.writeValueAsString(stage.getArtifacts().stream().collect(Collectors.toMap(Version::getArtifactName, Version::getVersion)));
-            } else {
-                String errorMessage = "No artifacts data in the response";
-                logger.info("Service returned empty result set");
-                ServiceHelper.interruptExecution(run, taskListener, errorMessage);
-                throw new AbortException(errorMessage);
+            String stageName = this.getStage();
+            List<String> stageNames = this.getStageList();
+            boolean useCache = this.isCache();
+            StaleMode staleMode = this.getStaleMode();
+            int maxStaleSeconds = this.getMaxStaleSeconds();
+            boolean multiStage = !stageNames.isEmpty();
+            Map<String, RetrievedVersions> retrieved = multiStage
+                    ? ArtifactzExecutor.call(() -> VersionRetriever.retrieveVersions(configuration, taskListener, token, stageNames, artifacts, useCache, staleMode, maxStaleSeconds))
+                    : Collections.singletonMap(stageName, ArtifactzExecutor.call(() -> VersionRetriever.retrieveVersions(configuration, taskListener, token, stageName, artifacts, useCache, staleMode, maxStaleSeconds)));
+            for (Map.Entry<String, RetrievedVersions> entry : retrieved.entrySet()) {
+                if (!entry.getValue().hasArtifacts()) {
+                    String errorMessage = multiStage ? "No artifacts data in the response for the stage '" + entry.getKey() + "'" : "No artifacts data in the response";
+                    logger.info("Service returned empty result set");
+                    ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                    throw new AbortException(errorMessage);
+                }
             }
-            envVars.put("_response", content);
+            boolean stale = retrieved.values().stream().anyMatch(RetrievedVersions::isStale);
 
-            String variableName = !StringUtils.isEmpty(this.getVariableName()) ? this.getVariableName() : "ARTIFACTZ_VERSION_DATA";
-            run.addAction(new InjectVariable(variableName, content));
-            l.println("Successfully retrieved artifact versions");
+            if (!StringUtils.isEmpty(this.getVariablePrefix())) {
+                Map<String, ?> versions;
+                if (multiStage) {
+                    Map<String, Map<String, String>> stages = new LinkedHashMap<>();
+                    for (Map.Entry<String, RetrievedVersions> entry : retrieved.entrySet()) {
+                        stages.put(entry.getKey(), entry.getValue().toMap());
+                    }
+                    versions = stages;
+                } else {
+                    versions = retrieved.get(stageName).toMap();
+                }
+                Map<String, String> renamed = new LinkedHashMap<>();
+                Map<String, String> variables = VersionVariables.toVariables(this.getVariablePrefix(), versions, renamed);
+                for (Map.Entry<String, String> entry : renamed.entrySet()) {
+                    l.println("The variable name of '" + entry.getValue() + "' collides with another artifact, using " + entry.getKey());
+                }
+                ArtifactzEnvironmentAction.of(run).putVariables(variables);
+            } else {
+                logger.info("There are artifacts in the response, writing the versions to the build");
+                String variableName = !StringUtils.isEmpty(this.getVariableName()) ? this.getVariableName() : "ARTIFACTZ_VERSION_DATA";
+                ArtifactzEnvironmentAction.of(run).putVersions(variableName, generator -> {
+                    if (!multiStage) {
+                        retrieved.get(stageName).writeTo(generator);
+                        return;
+                    }
+                    generator.writeStartObject();
+                    for (Map.Entry<String, RetrievedVersions> entry : retrieved.entrySet()) {
+                        generator.writeFieldName(entry.getKey());
+                        entry.getValue().writeTo(generator);
+                    }
+                    generator.writeEndObject();
+                });
+            }
+            if (staleMode != StaleMode.NONE) {
+                // the ages in seconds of the versions served stale, keyed as the versions are
+                String variableName = (!StringUtils.isEmpty(this.getVariableName()) ? this.getVariableName() : "ARTIFACTZ_VERSION_DATA") + "_STALE";
+                ArtifactzEnvironmentAction.of(run).putVersions(variableName, generator -> {
+                    if (!multiStage) {
+                        retrieved.get(stageName).writeStaleTo(generator);
+                        return;
+                    }
+                    generator.writeStartObject();
+                    for (Map.Entry<String, RetrievedVersions> entry : retrieved.entrySet()) {
+                        generator.writeFieldName(entry.getKey());
+                        entry.getValue().writeStaleTo(generator);
+                    }
+                    generator.writeEndObject();
+                });
+            }
+            l.println(stale ? "Retrieved artifact versions, some of them are stale" : "Successfully retrieved artifact versions");
         } catch (ClientException e) {
             logger.error("Error while retrieving artifact versions", e);
             String errorMessage = "Error while retrieving artifact versions: " + e.getMessage();
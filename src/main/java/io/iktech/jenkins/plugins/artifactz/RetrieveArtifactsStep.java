@@ -1,14 +1,10 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.google.common.collect.ImmutableSet;
 import hudson.*;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import io.artifactz.client.ServiceClient;
 import io.artifactz.client.exception.ClientException;
-import io.artifactz.client.model.Version;
-import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.jenkinsci.plugins.workflow.steps.*;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -16,15 +12,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.PrintStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class RetrieveArtifactsStep extends Step {
     private static Logger logger = LoggerFactory.getLogger(RetrieveArtifactsStep.class);
     private String stage;
+    private List<String> stages;
     private List<String> names;
+    private boolean cache = true;
+    private StaleMode staleMode = StaleMode.NONE;
+    private int maxStaleSeconds = VersionRetriever.DEFAULT_MAX_STALE_SECONDS;
+    private boolean detailed;
 
     @DataBoundConstructor
     public RetrieveArtifactsStep(String stage, List<String> names) {
@@ -41,6 +42,19 @@ public class RetrieveArtifactsStep extends Step {
         this.stage = stage;
     }
 
+    public List<String> getStages() {
+        return stages;
+    }
+
+    /**
+     * Sets the stages to retrieve the versions at instead of the single {@link #getStage() stage}. The step then
+     * returns the versions keyed by the stage name.
+     */
+    @DataBoundSetter
+    public void setStages(List<String> stages) {
+        this.stages = stages;
+    }
+
     public List<String> getNames() {
         return names;
     }
@@ -50,50 +64,103 @@ public class RetrieveArtifactsStep extends Step {
         this.names = names;
     }
 
+    public boolean isCache() {
+        return cache;
+    }
+
+    @DataBoundSetter
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    public StaleMode getStaleMode() {
+        return staleMode;
+    }
+
+    @DataBoundSetter
+    public void setStaleMode(StaleMode staleMode) {
+        this.staleMode = staleMode != null ? staleMode : StaleMode.NONE;
+    }
+
+    public int getMaxStaleSeconds() {
+        return maxStaleSeconds;
+    }
+
+    @DataBoundSetter
+    public void setMaxStaleSeconds(int maxStaleSeconds) {
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * @param detailed whether the step returns the versions under the {@code versions} key together with the ages in
+     *                 seconds of the versions served stale under the {@code stale} key, instead of the versions only
+     */
+    @DataBoundSetter
+    public void setDetailed(boolean detailed) {
+        this.detailed = detailed;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new Execution(stage, names, context);
+        return new Execution(stage, stages, names, cache, staleMode, maxStaleSeconds, detailed, context);
     }
 
-    private static final class Execution extends SynchronousNonBlockingStepExecution<Map<String, String>> {
+    private static final class Execution extends ArtifactzStepExecution<Map<String, ?>> {
         private static final long serialVersionUID = 6190377462479580850L;
 
         private final String stage;
+        private final List<String> stages;
         private final List<String> names;
+        private final boolean cache;
+        private final StaleMode staleMode;
+        private final int maxStaleSeconds;
+        private final boolean detailed;
 
-        Execution(String stage, List<String> names, StepContext context) {
+        Execution(String stage, List<String> stages, List<String> names, boolean cache, StaleMode staleMode, int maxStaleSeconds, boolean detailed, StepContext context) {
             super(context);
             this.stage = stage;
+            this.stages = stages;
             this.names = names;
+            this.cache = cache;
+            this.staleMode = staleMode;
+            this.maxStaleSeconds = maxStaleSeconds;
+            this.detailed = detailed;
         }
 
-        @Override protected Map<String, String> run() throws Exception {
-            Run<?, ?> run = getContext().get(Run.class);
-            TaskListener taskListener = getContext().get(TaskListener.class);
+        @Override protected Map<String, ?> run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            ConfigurationSnapshot configuration = Configuration.snapshot();
 
             assert taskListener != null;
             PrintStream l = taskListener.getLogger();
-            l.println("Retrieving versions of the following artifacts at the stage '" + this.stage + "'");
+            boolean multiStage = this.stages != null && !this.stages.isEmpty();
+            l.println("Retrieving versions of the following artifacts at the " + (multiStage ? "stages '" + String.join("', '", this.stages) + "'" : "stage '" + this.stage + "'"));
 
-            String credentialsId = Configuration.get().getCredentialsId();
+            String credentialsId = configuration.getCredentialsId();
             if (credentialsId == null) {
                 ServiceHelper.interruptExecution(run, taskListener, "Artifactz access credentials are not defined. Cannot continue.");
                 throw new AbortException("Artifactz access credentials are not defined. Cannot continue.");
             }
 
-            StringCredentials token = CredentialsProvider.findCredentialById(credentialsId, StringCredentials.class, run);
+            String token = CredentialsCache.get().getToken(run, credentialsId);
             if (token == null) {
                 ServiceHelper.interruptExecution(run, taskListener, "Could not find specified credentials. Cannot continue.");
                 throw new AbortException("Could not find specified credentials. Cannot continue.");
             }
 
             try {
-                ServiceClient client = ServiceHelper.getClient(taskListener, token.getSecret().getPlainText());
-                io.artifactz.client.model.Stage stage = client.retrieveVersions(this.stage, this.names.toArray(new String[0]));
+                if (multiStage) {
+                    return retrieveStages(configuration, run, taskListener, token);
+                }
+                RetrievedVersions versions = VersionRetriever.retrieveVersions(configuration, taskListener, token, this.stage, this.names, this.cache, this.staleMode, this.maxStaleSeconds);
                 logger.info("Content has been converted to the object");
-                if (stage.getArtifacts() != null) {
-                    l.println("Successfully retrieved artifact versions");
-                    return stage.getArtifacts().stream().collect(Collectors.toMap(Version::getArtifactName, Version::getVersion));
+                Map<String, String> result = versions.toMap();
+                if (result != null) {
+                    l.println(versions.isStale() ? "Retrieved artifact versions, some of them are stale" : "Successfully retrieved artifact versions");
+                    return this.detailed ? detailed(result, versions.getStaleSeconds()) : result;
                 }
                 String errorMessage = "No artifacts data in the response";
                 logger.info("Service returned empty result set");
@@ -106,6 +173,33 @@ public class RetrieveArtifactsStep extends Step {
                 throw new AbortException(errorMessage);
             }
         }
+
+        private Map<String, ?> retrieveStages(ConfigurationSnapshot configuration, Run<?, ?> run, TaskListener taskListener, String token) throws ClientException, InterruptedException, AbortException {
+            Map<String, RetrievedVersions> retrieved = VersionRetriever.retrieveVersions(configuration, taskListener, token, this.stages, this.names, this.cache, this.staleMode, this.maxStaleSeconds);
+            Map<String, Map<String, String>> result = new LinkedHashMap<>();
+            Map<String, Map<String, Long>> staleSeconds = new LinkedHashMap<>();
+            boolean stale = false;
+            for (Map.Entry<String, RetrievedVersions> entry : retrieved.entrySet()) {
+                Map<String, String> versions = entry.getValue().toMap();
+                if (versions == null) {
+                    String errorMessage = "No artifacts data in the response for the stage '" + entry.getKey() + "'";
+                    ServiceHelper.interruptExecution(run, taskListener, errorMessage);
+                    throw new AbortException(errorMessage);
+                }
+                stale |= entry.getValue().isStale();
+                result.put(entry.getKey(), versions);
+                staleSeconds.put(entry.getKey(), entry.getValue().getStaleSeconds());
+            }
+            taskListener.getLogger().println(stale ? "Retrieved artifact versions, some of them are stale" : "Successfully retrieved artifact versions");
+            return this.detailed ? detailed(result, staleSeconds) : result;
+        }
+
+        private static Map<String, Object> detailed(Map<String, ?> versions, Map<String, ?> staleSeconds) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("versions", versions);
+            result.put("stale", staleSeconds);
+            return result;
+        }
     }
 
     @Extension
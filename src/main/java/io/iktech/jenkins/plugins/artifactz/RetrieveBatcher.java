@@ -0,0 +1,196 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.model.TaskListener;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.exception.ClientException;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Merges the retrieve requests made for the same stage within a short window into a single multi-name service call.
+ *
+ * The caller opening a batch waits for the window to pass, or for the batch to fill up, then performs the call for all
+ * the names collected so far. Every caller receives the versions of the names it asked for only.
+ */
+public final class RetrieveBatcher {
+    private static final Map<Key, Batch> pending = new HashMap<>();
+
+    private static final AtomicLong batchCount = new AtomicLong();
+
+    private static final AtomicLong batchedRequestCount = new AtomicLong();
+
+    private static final DoubleAdder fillRatioSum = new DoubleAdder();
+
+    private RetrieveBatcher() {
+    }
+
+    public static Stage retrieveVersions(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names) throws ClientException, InterruptedException {
+        Key key = new Key(configuration.getServerUrl(), token, stage);
+        int maxBatchSize = configuration.getMaxBatchSize();
+        Batch batch;
+        boolean leader = false;
+        synchronized (pending) {
+            batch = pending.get(key);
+            if (batch == null || !batch.accepts(names, maxBatchSize)) {
+                batch = new Batch();
+                pending.put(key, batch);
+                leader = true;
+            }
+            batch.add(names, maxBatchSize, taskListener);
+        }
+
+        if (leader) {
+            boolean interrupted = false;
+            try {
+                batch.full.await(configuration.getBatchWindowMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // the other callers of the batch still expect the call to be made
+                interrupted = true;
+            }
+            synchronized (pending) {
+                pending.remove(key, batch);
+                batch.closed = true;
+            }
+            batchCount.incrementAndGet();
+            batchedRequestCount.addAndGet(batch.requests);
+            fillRatioSum.add((double) batch.names.size() / maxBatchSize);
+
+            try {
+                // the output of the call goes to the logs of all the builds in the batch
+                TaskListener listener = batch.listener;
+                String[] batchNames = batch.names.toArray(new String[0]);
+                try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(configuration, listener, token)) {
+                    ServiceClient client = lease.getClient();
+                    batch.result.complete(configuration.getRetryPolicy().read(listener, () -> HedgedRetrieve.call(configuration, ServiceHelper.withFeedback(listener, () -> client.retrieveVersions(stage, batchNames)))));
+                }
+            } catch (ClientException | RuntimeException e) {
+                batch.result.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                batch.result.completeExceptionally(new ClientException("Interrupted while retrying the retrieve batch"));
+                interrupted = true;
+            }
+            if (interrupted) {
+                throw new InterruptedException("Interrupted while collecting the retrieve batch");
+            }
+        }
+
+        return split(await(batch.result), names);
+    }
+
+    private static Stage await(CompletableFuture<Stage> result) throws ClientException, InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientException(cause.getMessage());
+        }
+    }
+
+    private static Stage split(Stage stage, List<String> names) {
+        if (stage.getArtifacts() == null) {
+            return stage;
+        }
+        Set<String> requested = new LinkedHashSet<>(names);
+        List<Version> artifacts = new ArrayList<>();
+        for (Version version : stage.getArtifacts()) {
+            if (requested.contains(version.getArtifactName())) {
+                artifacts.add(version);
+            }
+        }
+        return new Stage(stage.getStage(), artifacts);
+    }
+
+    public static long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public static long getBatchedRequestCount() {
+        return batchedRequestCount.get();
+    }
+
+    /**
+     * @return the average ratio of the number of names in a batch to the maximum batch size
+     */
+    public static double getAverageFillRatio() {
+        long batches = batchCount.get();
+        return batches > 0 ? fillRatioSum.sum() / batches : 0;
+    }
+
+    private static final class Batch {
+        private final Set<String> names = new LinkedHashSet<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CompletableFuture<Stage> result = new CompletableFuture<>();
+        private final SharedListener listener = new SharedListener(null);
+        private int requests;
+        private boolean closed;
+
+        boolean accepts(List<String> more, int maxBatchSize) {
+            if (this.closed) {
+                return false;
+            }
+            Set<String> merged = new LinkedHashSet<>(this.names);
+            merged.addAll(more);
+            return merged.size() <= maxBatchSize;
+        }
+
+        void add(List<String> more, int maxBatchSize, TaskListener taskListener) {
+            this.names.addAll(more);
+            this.listener.join(taskListener);
+            this.requests++;
+            if (this.names.size() >= maxBatchSize) {
+                this.full.countDown();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String serverUrl;
+        private final String tokenFingerprint;
+        private final String stage;
+
+        Key(String serverUrl, String token, String stage) {
+            this.serverUrl = serverUrl;
+            this.tokenFingerprint = token != null ? DigestUtils.sha256Hex(token) : null;
+            this.stage = stage;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(serverUrl, key.serverUrl) &&
+                    Objects.equals(tokenFingerprint, key.tokenFingerprint) &&
+                    Objects.equals(stage, key.stage);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverUrl, tokenFingerprint, stage);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a version retrieval: the stage returned by the service, merged with the cached versions, and the ages of
+ * the versions that have been served stale.
+ */
+public final class RetrievedVersions {
+    private final Stage stage;
+    private final Map<String, Long> staleAges;
+
+    public RetrievedVersions(Stage stage, Map<String, Long> staleAges) {
+        this.stage = stage;
+        this.staleAges = Collections.unmodifiableMap(staleAges);
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * @return the age in milliseconds of every version served stale, keyed by the artifact name
+     */
+    public Map<String, Long> getStaleAges() {
+        return staleAges;
+    }
+
+    /**
+     * @return the age in seconds of every version served stale, keyed by the artifact name
+     */
+    public Map<String, Long> getStaleSeconds() {
+        Map<String, Long> seconds = new LinkedHashMap<>();
+        staleAges.forEach((name, age) -> seconds.put(name, TimeUnit.MILLISECONDS.toSeconds(age)));
+        return seconds;
+    }
+
+    public boolean isStale() {
+        return !staleAges.isEmpty();
+    }
+
+    /**
+     * @return whether the service returned the artifacts, possibly none
+     */
+    public boolean hasArtifacts() {
+        return stage.getArtifacts() != null;
+    }
+
+    /**
+     * Converts the versions to the artifact name to version map returned to the build. The artifacts served stale are
+     * reported by {@link #getStaleSeconds()}, the map only holds the versions.
+     *
+     * @return the versions keyed by the artifact name or {@code null} if the service returned no artifacts
+     */
+    public Map<String, String> toMap() {
+        if (stage.getArtifacts() == null) {
+            return null;
+        }
+        Map<String, String> versions = new LinkedHashMap<>();
+        for (Version version : stage.getArtifacts()) {
+            versions.put(version.getArtifactName(), version.getVersion());
+        }
+        return versions;
+    }
+
+    /**
+     * Writes the map returned by {@link #toMap()} as a JSON object straight from the versions, without building the
+     * map first.
+     *
+     * @param generator the generator to write the object to
+     * @throws IOException if the generator fails to write
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (stage.getArtifacts() != null) {
+            Set<String> written = new HashSet<>();
+            for (Version version : stage.getArtifacts()) {
+                // the same name requested twice is returned twice with the same version
+                if (written.add(version.getArtifactName())) {
+                    generator.writeStringField(version.getArtifactName(), version.getVersion());
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the map returned by {@link #getStaleSeconds()} as a JSON object.
+     *
+     * @param generator the generator to write the object to
+     * @throws IOException if the generator fails to write
+     */
+    public void writeStaleTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Long> entry : staleAges.entrySet()) {
+            generator.writeNumberField(entry.getKey(), TimeUnit.MILLISECONDS.toSeconds(entry.getValue()));
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,144 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.model.TaskListener;
+import io.artifactz.client.exception.ClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries the failed Artifactz service calls with exponential backoff and jitter.
+ *
+ * The client reports all the failures as {@link ClientException}s carrying only a message, so an error is retryable
+ * when its message contains one of the configured fragments, e.g. an HTTP status code or a connection error. Only
+ * the idempotent calls are retried: retrieves, publishes and pushes of an explicit version. Every attempt goes through
+ * the {@link ConcurrencyLimiter} and the {@link CircuitBreaker}, which count the retryable errors as the service
+ * failures.
+ */
+public final class RetryPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final int DEFAULT_BASE_DELAY_MILLIS = 200;
+
+    public static final int DEFAULT_MAX_DELAY_MILLIS = 5000;
+
+    public static final int DEFAULT_JITTER_PERCENT = 50;
+
+    public static final String DEFAULT_RETRYABLE_ERRORS = "502, 503, 504, timed out, timeout, connection refused, connection reset";
+
+    static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0, "");
+
+    private static final AtomicLong retryCount = new AtomicLong();
+
+    private final int maxAttempts;
+    private final int baseDelayMillis;
+    private final int maxDelayMillis;
+    private final int jitterPercent;
+    private final List<String> retryableErrors;
+
+    RetryPolicy(int maxAttempts, int baseDelayMillis, int maxDelayMillis, int jitterPercent, String retryableErrors) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.baseDelayMillis = Math.max(baseDelayMillis, 0);
+        this.maxDelayMillis = Math.max(maxDelayMillis, this.baseDelayMillis);
+        this.jitterPercent = Math.min(Math.max(jitterPercent, 0), 100);
+        this.retryableErrors = parse(retryableErrors);
+    }
+
+    /**
+     * Performs a read call, retrying the retryable errors.
+     *
+     * @param taskListener the listener the retries are reported to, may be {@code null}
+     * @param call the service call
+     * @param <T> the type of the call result
+     * @return the call result
+     * @throws ClientException the error of the last attempt
+     * @throws InterruptedException if interrupted while waiting for the next attempt
+     */
+    public <T> T read(TaskListener taskListener, ArtifactzExecutor.ServiceCall<T> call) throws ClientException, InterruptedException {
+        return call(taskListener, true, true, call);
+    }
+
+    /**
+     * Performs a write call, retrying the retryable errors if the call is idempotent.
+     *
+     * @param taskListener the listener the retries are reported to, may be {@code null}
+     * @param idempotent whether the call can be repeated safely
+     * @param call the service call
+     * @param <T> the type of the call result
+     * @return the call result
+     * @throws ClientException the error of the last attempt
+     * @throws InterruptedException if interrupted while waiting for the next attempt
+     */
+    public <T> T write(TaskListener taskListener, boolean idempotent, ArtifactzExecutor.ServiceCall<T> call) throws ClientException, InterruptedException {
+        return call(taskListener, false, idempotent, call);
+    }
+
+    private <T> T call(TaskListener taskListener, boolean read, boolean idempotent, ArtifactzExecutor.ServiceCall<T> call) throws ClientException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return ConcurrencyLimiter.call(read, () -> CircuitBreaker.call(call, this::isRetryable), this::isRetryable);
+            } catch (ClientException e) {
+                if (!idempotent || attempt >= this.maxAttempts || e instanceof CircuitBreaker.OpenException || !isRetryable(e)) {
+                    throw e;
+                }
+                long delay = getDelayMillis(attempt);
+                String message = "Artifactz call failed: " + e.getMessage() + ", retrying in " + delay + " ms (attempt " + (attempt + 1) + " of " + this.maxAttempts + ")";
+                if (taskListener != null) {
+                    taskListener.getLogger().println(message);
+                }
+                logger.info(message);
+                retryCount.incrementAndGet();
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    boolean isRetryable(ClientException e) {
+        String message = e.getMessage() != null ? e.getMessage().toLowerCase(Locale.ENGLISH) : "";
+        for (String error : this.retryableErrors) {
+            if (message.contains(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the delay before the attempt following the given one: the exponential delay capped by the maximum
+     * delay, reduced by a random part of up to the jitter percentage
+     */
+    long getDelayMillis(int attempt) {
+        long delay = Math.min((long) this.baseDelayMillis << Math.min(attempt - 1, 30), this.maxDelayMillis);
+        long jitter = delay * this.jitterPercent / 100;
+        return jitter > 0 ? delay - ThreadLocalRandom.current().nextLong(jitter + 1) : delay;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public static long getRetryCount() {
+        return retryCount.get();
+    }
+
+    private static List<String> parse(String retryableErrors) {
+        if (retryableErrors == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String error : retryableErrors.split(",")) {
+            if (!error.trim().isEmpty()) {
+                result.add(error.trim().toLowerCase(Locale.ENGLISH));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,250 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.exception.ClientException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded, least recently used cache of the {@link ServiceClient} instances.
+ *
+ * Clients are keyed by the server URL, the API token fingerprint and the proxy settings, so every step talking to the
+ * same endpoint with the same credentials reuses the same client together with its keep-alive connections instead of
+ * paying for the TCP and TLS handshake on every call.
+ *
+ * The clients are shared between the builds, so they are handed out as {@link Lease leases}. A client dropped from the
+ * cache, by the eviction or by {@link #invalidateAll()}, is closed once the last lease on it is released rather than
+ * under the calls still running on it.
+ */
+public class ServiceClientCache {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceClientCache.class);
+
+    private static final int MAX_SIZE = Integer.getInteger(ServiceClientCache.class.getName() + ".maxSize", 16);
+
+    private final int maxSize;
+
+    private final Map<Key, Holder> clients;
+
+    // guarded by clients, the evicted clients nobody uses any more, closed outside the lock
+    private final List<ServiceClient> evicted = new ArrayList<>();
+
+    public ServiceClientCache() {
+        this(MAX_SIZE);
+    }
+
+    public ServiceClientCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.clients = new LinkedHashMap<Key, Holder>(16, 0.75f, true) {
+            private static final long serialVersionUID = -1837205874563170343L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Holder> eldest) {
+                if (size() > ServiceClientCache.this.maxSize) {
+                    if (eldest.getValue().drop()) {
+                        ServiceClientCache.this.evicted.add(eldest.getValue().client);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Leases the cached client for the given key, building and caching a new one if there is none yet. The lease must
+     * be released once the calls on the client are done.
+     *
+     * @param key the client key
+     * @param loader the factory used when there is no client for the key yet
+     * @return the lease on the client
+     * @throws ClientException if the client could not be built
+     */
+    public Lease acquire(Key key, Loader loader) throws ClientException {
+        synchronized (this.clients) {
+            Holder holder = this.clients.get(key);
+            if (holder != null) {
+                return new Lease(holder);
+            }
+        }
+
+        ServiceClient client = loader.load();
+        Lease lease;
+        boolean built;
+        synchronized (this.clients) {
+            Holder holder = this.clients.get(key);
+            built = holder == null;
+            if (built) {
+                holder = new Holder(client);
+                this.clients.put(key, holder);
+            }
+            lease = new Lease(holder);
+        }
+        if (!built) {
+            // another caller has built a client for the same key meanwhile
+            close(client);
+        }
+        closeEvicted();
+        return lease;
+    }
+
+    /**
+     * Drops all the cached clients, e.g. when the global configuration has changed. The clients still in use are
+     * closed when their last lease is released.
+     */
+    public void invalidateAll() {
+        List<ServiceClient> dropped = new ArrayList<>();
+        synchronized (this.clients) {
+            for (Holder holder : this.clients.values()) {
+                if (holder.drop()) {
+                    dropped.add(holder.client);
+                }
+            }
+            this.clients.clear();
+        }
+        dropped.forEach(ServiceClientCache::close);
+    }
+
+    private void closeEvicted() {
+        List<ServiceClient> dropped;
+        synchronized (this.clients) {
+            if (this.evicted.isEmpty()) {
+                return;
+            }
+            dropped = new ArrayList<>(this.evicted);
+            this.evicted.clear();
+        }
+        dropped.forEach(ServiceClientCache::close);
+    }
+
+    /**
+     * Releases the connections of a client that is no longer used.
+     *
+     * @param client the client
+     */
+    static void close(ServiceClient client) {
+        if (client instanceof Closeable) {
+            try {
+                ((Closeable) client).close();
+            } catch (IOException e) {
+                logger.debug("Could not close the service client", e);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (this.clients) {
+            return this.clients.size();
+        }
+    }
+
+    /**
+     * Use of a cached client by a single caller, released with {@link #close()}.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Holder holder;
+
+        private boolean released;
+
+        // called with the cache lock held
+        private Lease(Holder holder) {
+            this.holder = holder;
+            holder.users++;
+        }
+
+        public ServiceClient getClient() {
+            return this.holder.client;
+        }
+
+        @Override
+        public void close() {
+            boolean unused;
+            synchronized (ServiceClientCache.this.clients) {
+                if (this.released) {
+                    return;
+                }
+                this.released = true;
+                unused = --this.holder.users == 0 && this.holder.dropped;
+            }
+            if (unused) {
+                ServiceClientCache.close(this.holder.client);
+            }
+        }
+    }
+
+    // guarded by the cache lock
+    private static final class Holder {
+        private final ServiceClient client;
+
+        private int users;
+
+        private boolean dropped;
+
+        private Holder(ServiceClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Marks the client as dropped from the cache.
+         *
+         * @return whether the client can be closed straight away
+         */
+        private boolean drop() {
+            this.dropped = true;
+            return this.users == 0;
+        }
+    }
+
+    public interface Loader {
+        ServiceClient load() throws ClientException;
+    }
+
+    public static final class Key {
+        private final String serverUrl;
+        private final String tokenFingerprint;
+        private final String proxy;
+        private final String proxyUsername;
+        private final String proxyPasswordFingerprint;
+
+        public Key(String serverUrl, String token, String proxy, String proxyUsername, String proxyPassword) {
+            this.serverUrl = serverUrl;
+            this.tokenFingerprint = fingerprint(token);
+            this.proxy = proxy;
+            this.proxyUsername = proxyUsername;
+            this.proxyPasswordFingerprint = fingerprint(proxyPassword);
+        }
+
+        private static String fingerprint(String secret) {
+            return secret != null ? DigestUtils.sha256Hex(secret) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(serverUrl, key.serverUrl) &&
+                    Objects.equals(tokenFingerprint, key.tokenFingerprint) &&
+                    Objects.equals(proxy, key.proxy) &&
+                    Objects.equals(proxyUsername, key.proxyUsername) &&
+                    Objects.equals(proxyPasswordFingerprint, key.proxyPasswordFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverUrl, tokenFingerprint, proxy, proxyUsername, proxyPasswordFingerprint);
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package io.iktech.jenkins.plugins.artifactz;
 
-import com.cloudbees.plugins.credentials.CredentialsMatchers;
-import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.FilePath;
 import hudson.model.Executor;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.security.ACL;
-import io.artifactz.client.ServiceClient;
+import io.artifactz.client.Feedback;
+import io.artifactz.client.FeedbackLevel;
 import io.artifactz.client.ServiceClientBuilder;
 import io.artifactz.client.exception.ClientException;
-import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
@@ -19,15 +17,25 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
 
 public class ServiceHelper {
-    public static ServiceClient getClient(String token) throws ClientException {
-        return getClient(null, token);
+    private static final Logger logger = LoggerFactory.getLogger(ServiceHelper.class);
+
+    private static final ServiceClientCache clients = new ServiceClientCache();
+
+    private static final ThreadLocal<TaskListener> currentListener = new ThreadLocal<>();
+
+    private static final Feedback feedback = new ListenerFeedback();
+
+    public static ServiceClientCache.Lease acquireClient(String token) throws ClientException {
+        return acquireClient(Configuration.snapshot(), null, token);
     }
 
     public static void interruptExecution(@Nonnull Run<?, ?> run, @Nonnull TaskListener taskListener, String message) {
@@ -38,38 +46,105 @@ public class ServiceHelper {
         }
     }
 
-    public static ServiceClient getClient(TaskListener taskListener, String token) throws ClientException {
+    public static ServiceClientCache.Lease acquireClient(TaskListener taskListener, String token) throws ClientException {
+        return acquireClient(Configuration.snapshot(), taskListener, token);
+    }
+
+    /**
+     * Leases the shared client for the configuration and the token. The clients are shared between the builds, so the
+     * client feedback only reaches a build log when the call is wrapped by {@link #withFeedback}, and the lease has to
+     * be released once the calls are done, so a client dropped from the cache meanwhile can be closed.
+     */
+    public static ServiceClientCache.Lease acquireClient(ConfigurationSnapshot configuration, TaskListener taskListener, String token) throws ClientException {
         String proxyUsername = null;
         String proxyPassword = null;
 
-        StandardUsernamePasswordCredentials proxyCredentials = getProxyCredentials();
+        StandardUsernamePasswordCredentials proxyCredentials = getProxyCredentials(configuration);
         if (proxyCredentials != null) {
             proxyUsername = proxyCredentials.getUsername();
             proxyPassword = proxyCredentials.getPassword().getPlainText();
         }
 
-        ServiceClientBuilder builder = ServiceClientBuilder
-                .withBaseUrl(Configuration.get().getServerUrl())
+        String serverUrl = configuration.getServerUrl();
+        String proxy = configuration.getProxy();
+        String finalProxyUsername = proxyUsername;
+        String finalProxyPassword = proxyPassword;
+
+        return clients.acquire(new ServiceClientCache.Key(serverUrl, token, proxy, proxyUsername, proxyPassword), () -> ServiceClientBuilder
+                .withBaseUrl(serverUrl)
                 .withApiToken(token)
                 .withUserAgent("Jenkins Artifactz.io plugin/1.0")
                 .withSender("jenkins-plugin")
-                .withProxyUrl(Configuration.get().getProxy())
-                .withProxyUsername(proxyUsername)
-                .withProxyPassword(proxyPassword)
-                .provideFeedback(taskListener != null ? new FeedbackImpl(taskListener) : null);
+                .withProxyUrl(proxy)
+                .withProxyUsername(finalProxyUsername)
+                .withProxyPassword(finalProxyPassword)
+                .provideFeedback(feedback)
+                .build());
+    }
 
-        return builder.build();
+    /**
+     * Performs the operation on the agent owning the workspace when the global configuration asks for it, and on the
+     * controller otherwise.
+     *
+     * @param configuration the configuration of the calling step
+     * @param taskListener the listener the client feedback is sent to
+     * @param token the API token
+     * @param workspace the workspace of the build, {@code null} if there is none
+     * @param operation the operation
+     * @param <T> the type of the operation result
+     * @return the operation result
+     * @throws ClientException if the operation fails
+     * @throws InterruptedException if interrupted while waiting for the agent
+     */
+    public static <T> T call(ConfigurationSnapshot configuration, TaskListener taskListener, String token, @CheckForNull FilePath workspace, AgentServiceCall.Operation<T> operation) throws ClientException, InterruptedException {
+        if (configuration.isRunOnAgent() && workspace != null && workspace.isRemote()) {
+            return AgentServiceCall.call(workspace, configuration, taskListener, token, operation);
+        }
+        try (ServiceClientCache.Lease lease = acquireClient(configuration, taskListener, token)) {
+            return withFeedback(taskListener, () -> operation.perform(lease.getClient())).call();
+        }
+    }
+
+    /**
+     * Wraps a service call so the feedback of the shared client is sent to the given listener while the call runs on
+     * the calling thread. The listener is removed from the thread when the call returns, so the pool threads do not
+     * keep the listeners of the finished builds.
+     *
+     * @param taskListener the listener the client feedback is sent to
+     * @param call the service call
+     * @param <T> the type of the call result
+     * @return the wrapped call
+     */
+    public static <T> ArtifactzExecutor.ServiceCall<T> withFeedback(TaskListener taskListener, ArtifactzExecutor.ServiceCall<T> call) {
+        return () -> {
+            TaskListener previous = currentListener.get();
+            currentListener.set(taskListener);
+            try {
+                return call.call();
+            } finally {
+                if (previous != null) {
+                    currentListener.set(previous);
+                } else {
+                    currentListener.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Drops all the cached service clients, so the next call builds a client using the current configuration.
+     */
+    public static void invalidateClients() {
+        clients.invalidateAll();
     }
 
     public static StandardUsernamePasswordCredentials getProxyCredentials() {
-        if (!StringUtils.isEmpty(Configuration.get().getProxyCredentialsId())) {
-            return CredentialsMatchers.firstOrNull(
-                    CredentialsProvider.lookupCredentials(
-                            StandardUsernamePasswordCredentials.class,
-                            Jenkins.get(),
-                            ACL.SYSTEM,
-                            Collections.emptyList()
-                    ), CredentialsMatchers.withId(Configuration.get().getProxyCredentialsId()));
+        return getProxyCredentials(Configuration.snapshot());
+    }
+
+    public static StandardUsernamePasswordCredentials getProxyCredentials(ConfigurationSnapshot configuration) {
+        if (!StringUtils.isEmpty(configuration.getProxyCredentialsId())) {
+            return CredentialsCache.get().getProxyCredentials(configuration.getProxyCredentialsId());
         }
 
         return null;
@@ -83,8 +158,9 @@ public class ServiceHelper {
 
         HttpClientBuilder clientbuilder = HttpClients.custom();
 
-        if (!StringUtils.isEmpty(Configuration.get().getProxy())) {
-            URL proxyUri = new URL(Configuration.get().getProxy());
+        ConfigurationSnapshot configuration = Configuration.snapshot();
+        if (!StringUtils.isEmpty(configuration.getProxy())) {
+            URL proxyUri = new URL(configuration.getProxy());
             proxySchema = proxyUri.getProtocol();
             proxyHost = proxyUri.getHost();
             proxyPort = proxyUri.getPort();
@@ -93,7 +169,7 @@ public class ServiceHelper {
             }
             proxyHttpHost = new HttpHost(proxyHost, proxyPort, proxySchema);
 
-            StandardUsernamePasswordCredentials proxyCredentials = getProxyCredentials();
+            StandardUsernamePasswordCredentials proxyCredentials = getProxyCredentials(configuration);
             if (proxyCredentials != null) {
                 org.apache.http.client.CredentialsProvider credsProvider = new BasicCredentialsProvider();
                 credsProvider.setCredentials(new AuthScope(proxyHttpHost),
@@ -104,4 +180,16 @@ public class ServiceHelper {
 
         return proxyHttpHost;
     }
+
+    private static final class ListenerFeedback implements Feedback {
+        @Override
+        public void send(FeedbackLevel feedbackLevel, String s) {
+            TaskListener taskListener = currentListener.get();
+            if (taskListener != null) {
+                taskListener.getLogger().println(s);
+            } else {
+                logger.debug(s);
+            }
+        }
+    }
 }
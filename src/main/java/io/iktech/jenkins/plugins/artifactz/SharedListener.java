@@ -0,0 +1,60 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.model.TaskListener;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Listener of a service call shared by several builds, e.g. a coalesced or batched retrieve. Every complete line
+ * written to it is copied to the logs of all the builds that have joined the call so far.
+ */
+final class SharedListener implements TaskListener {
+    private static final long serialVersionUID = 2164981315264740373L;
+
+    private final transient List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final transient PrintStream logger = new PrintStream(new LineFanOut(), true);
+
+    SharedListener(TaskListener first) {
+        join(first);
+    }
+
+    /**
+     * Adds the listener of another build waiting for the call.
+     *
+     * @param listener the listener, ignored if {@code null}
+     */
+    void join(TaskListener listener) {
+        if (listener != null) {
+            this.listeners.add(listener);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public PrintStream getLogger() {
+        return this.logger;
+    }
+
+    private final class LineFanOut extends OutputStream {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b) {
+            this.line.write(b);
+            if (b == '\n') {
+                String text = new String(this.line.toByteArray(), StandardCharsets.UTF_8);
+                this.line.reset();
+                for (TaskListener listener : SharedListener.this.listeners) {
+                    listener.getLogger().print(text);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import org.jvnet.localizer.Localizable;
+
+/**
+ * Defines when the retrieve steps may return the last known versions instead of the current ones.
+ */
+public enum StaleMode {
+    /**
+     * Always return the current versions, failing when the service cannot be reached.
+     */
+    NONE(Messages._StaleMode_NONE()),
+
+    /**
+     * Return the last known versions immediately and refresh them in the background.
+     */
+    REVALIDATE(Messages._StaleMode_REVALIDATE()),
+
+    /**
+     * Return the last known versions only when the service call fails.
+     */
+    ON_ERROR(Messages._StaleMode_ON_ERROR());
+
+    private final Localizable displayName;
+
+    StaleMode(Localizable displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName.toString();
+    }
+}
@@ -0,0 +1,244 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controller side cache of the artifact versions retrieved from the service, keyed by the service, credentials, stage
+ * and artifact name.
+ *
+ * Entries older than the configured time to live are not served as fresh, but are kept until they are evicted by the
+ * size limit. Successful pushes and publishes update or drop the affected entries. The retrieve steps running in one
+ * of the {@link StaleMode stale modes} serve these older entries when allowed to.
+ *
+ * Every invalidation, and every publish, bumps the generation of the cache and records it for the artifact. A retrieve
+ * passes the generation it started at when storing its result, so the versions of an artifact pushed or published
+ * while the retrieve was in progress are not stored.
+ */
+public final class VersionCache {
+    private static final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final int MAX_INVALIDATIONS = 10000;
+
+    // the generation at which every artifact has last been invalidated, guarded by the entries lock
+    private static final Map<Key, Long> invalidations = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final AtomicLong generation = new AtomicLong();
+
+    // the highest generation dropped from the invalidations, guarded by the entries lock
+    private static long forgottenGeneration;
+
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private VersionCache() {
+    }
+
+    /**
+     * Returns the cached entry for the artifact, regardless of its age.
+     *
+     * @param configuration the configuration of the calling step
+     * @param token the API token
+     * @param stage the stage name
+     * @param name the artifact name
+     * @return the entry or {@code null} if there is no entry for the artifact
+     */
+    public static Entry get(ConfigurationSnapshot configuration, String token, String stage, String name) {
+        synchronized (entries) {
+            return entries.get(new Key(configuration.getServerUrl(), token, stage, name));
+        }
+    }
+
+    /**
+     * Returns the cached version if it is younger than the configured time to live.
+     *
+     * @param configuration the configuration of the calling step
+     * @param token the API token
+     * @param stage the stage name
+     * @param name the artifact name
+     * @return the version or {@code null} if there is no fresh entry for the artifact
+     */
+    public static String getFresh(ConfigurationSnapshot configuration, String token, String stage, String name) {
+        Entry entry = get(configuration, token, stage, name);
+        if (entry != null && entry.getAgeMillis() < TimeUnit.SECONDS.toMillis(configuration.getVersionCacheTtlSeconds())) {
+            hitCount.incrementAndGet();
+            return entry.getVersion();
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the version published by a build. The publish counts as an invalidation of the artifact, so a retrieve
+     * started before it cannot overwrite the published version with the one it got.
+     *
+     * @param configuration the configuration of the calling step
+     * @param token the API token
+     * @param stage the stage name
+     * @param name the artifact name
+     * @param version the published version
+     */
+    public static void put(ConfigurationSnapshot configuration, String token, String stage, String name, String version) {
+        synchronized (entries) {
+            long published = recordInvalidation(new Key(configuration.getServerUrl(), token, null, name));
+            put(configuration, token, stage, name, version, published);
+        }
+    }
+
+    /**
+     * Stores the version retrieved by a call started at the given generation, unless the artifact has been invalidated
+     * since.
+     *
+     * @param configuration the configuration of the calling step
+     * @param token the API token
+     * @param stage the stage name
+     * @param name the artifact name
+     * @param version the version
+     * @param since the {@link #getGeneration() generation} at which the retrieve started
+     */
+    public static void put(ConfigurationSnapshot configuration, String token, String stage, String name, String version, long since) {
+        if (configuration.getVersionCacheTtlSeconds() <= 0) {
+            return;
+        }
+        store(configuration, token, stage, name, version, since);
+    }
+
+    /**
+     * Stores the version even if the cache is disabled, so it can be served stale later.
+     */
+    static void store(ConfigurationSnapshot configuration, String token, String stage, String name, String version, long since) {
+        if (name == null || version == null) {
+            return;
+        }
+        synchronized (entries) {
+            Long invalidated = invalidations.get(new Key(configuration.getServerUrl(), token, null, name));
+            if (forgottenGeneration > since || (invalidated != null && invalidated > since)) {
+                return;
+            }
+            entries.put(new Key(configuration.getServerUrl(), token, stage, name), new Entry(version, System.currentTimeMillis()));
+            Iterator<Key> eldest = entries.keySet().iterator();
+            while (entries.size() > configuration.getVersionCacheMaxSize() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the entries of the artifact at all the stages. A push moves the version to the next stage of the flow,
+     * which is not known to the plugin.
+     *
+     * @param configuration the configuration of the calling step
+     * @param token the API token
+     * @param name the artifact name
+     */
+    public static void invalidate(ConfigurationSnapshot configuration, String token, String name) {
+        Key probe = new Key(configuration.getServerUrl(), token, null, name);
+        synchronized (entries) {
+            recordInvalidation(probe);
+            entries.keySet().removeIf(key -> key.isSameArtifact(probe));
+        }
+    }
+
+    // called with the entries lock held
+    private static long recordInvalidation(Key probe) {
+        long invalidated = generation.incrementAndGet();
+        invalidations.put(probe, invalidated);
+        Iterator<Map.Entry<Key, Long>> eldest = invalidations.entrySet().iterator();
+        while (invalidations.size() > MAX_INVALIDATIONS && eldest.hasNext()) {
+            forgottenGeneration = Math.max(forgottenGeneration, eldest.next().getValue());
+            eldest.remove();
+        }
+        return invalidated;
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put(ConfigurationSnapshot, String, String, String, String, long)}
+     * by the retrieves starting now
+     */
+    public static long getGeneration() {
+        return generation.get();
+    }
+
+    public static void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public static int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    public static final class Entry {
+        private final String version;
+        private final long storedAt;
+
+        Entry(String version, long storedAt) {
+            this.version = version;
+            this.storedAt = storedAt;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public long getAgeMillis() {
+            return System.currentTimeMillis() - storedAt;
+        }
+    }
+
+    private static final class Key {
+        private final String serverUrl;
+        private final String tokenFingerprint;
+        private final String stage;
+        private final String name;
+
+        Key(String serverUrl, String token, String stage, String name) {
+            this.serverUrl = serverUrl;
+            this.tokenFingerprint = token != null ? DigestUtils.sha256Hex(token) : null;
+            this.stage = stage;
+            this.name = name;
+        }
+
+        boolean isSameArtifact(Key other) {
+            return Objects.equals(serverUrl, other.serverUrl) &&
+                    Objects.equals(tokenFingerprint, other.tokenFingerprint) &&
+                    Objects.equals(name, other.name);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return isSameArtifact(key) && Objects.equals(stage, key.stage);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverUrl, tokenFingerprint, stage, name);
+        }
+    }
+}
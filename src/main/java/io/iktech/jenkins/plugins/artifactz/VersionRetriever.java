@@ -0,0 +1,356 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import hudson.model.TaskListener;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.exception.ClientException;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retrieves the artifact versions for the retrieve steps.
+ *
+ * Identical requests made concurrently, i.e. for the same service, credentials, stage and artifact names, are
+ * coalesced: the first caller makes the service call on its own thread and the other callers wait for its result, so a
+ * coalesced retrieve takes no thread beyond the ones of the callers. When the first caller is interrupted, the call is
+ * abandoned and one of the waiting callers makes it again, so the interruption only fails the interrupted build. When
+ * the batching window is configured, the calls are further merged by the {@link RetrieveBatcher}. When the version
+ * cache is enabled, only the artifacts missing from the {@link VersionCache} are requested from the service. The
+ * {@link StaleMode stale modes} allow serving the last known versions when the current ones are not available.
+ */
+public final class VersionRetriever {
+    private static final Logger logger = LoggerFactory.getLogger(VersionRetriever.class);
+
+    public static final int DEFAULT_MAX_STALE_SECONDS = 3600;
+
+    private static final int MAX_STAGE_PARALLELISM = 10;
+
+    private static final ConcurrentMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private static final AtomicLong requestCount = new AtomicLong();
+
+    private static final AtomicLong coalescedCount = new AtomicLong();
+
+    private static final AtomicLong staleCount = new AtomicLong();
+
+    private VersionRetriever() {
+    }
+
+    public static Stage retrieveVersions(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names, boolean useCache) throws ClientException, InterruptedException {
+        return retrieveVersions(configuration, taskListener, token, stage, names, useCache, StaleMode.NONE, 0).getStage();
+    }
+
+    /**
+     * Retrieves the artifact versions, serving the last known versions no older than {@code maxStaleSeconds} as
+     * allowed by the stale mode.
+     *
+     * @param configuration the configuration of the calling step
+     * @param taskListener the listener of the calling build, may be {@code null}
+     * @param token the API token
+     * @param stage the stage name
+     * @param names the artifact names
+     * @param useCache whether fresh versions can be served from the {@link VersionCache}
+     * @param staleMode when the last known versions can be served
+     * @param maxStaleSeconds the maximum age of a version served stale
+     * @return the retrieved versions
+     */
+    public static RetrievedVersions retrieveVersions(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names, boolean useCache, StaleMode staleMode, int maxStaleSeconds) throws ClientException, InterruptedException {
+        requestCount.incrementAndGet();
+        boolean cacheEnabled = configuration.getVersionCacheTtlSeconds() > 0;
+        boolean remember = staleMode != StaleMode.NONE;
+        Map<String, Long> staleAges = new LinkedHashMap<>();
+        if (!cacheEnabled && !remember) {
+            return new RetrievedVersions(coalesce(configuration, taskListener, token, stage, names), staleAges);
+        }
+
+        List<Version> artifacts = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            String version = useCache && cacheEnabled ? VersionCache.getFresh(configuration, token, stage, name) : null;
+            if (version != null) {
+                artifacts.add(new Version(name, null, null, null, null, version));
+            } else {
+                missing.add(name);
+            }
+        }
+
+        if (staleMode == StaleMode.REVALIDATE) {
+            List<String> revalidated = new ArrayList<>();
+            for (Iterator<String> i = missing.iterator(); i.hasNext(); ) {
+                String name = i.next();
+                if (serveStale(configuration, token, stage, name, maxStaleSeconds, artifacts, staleAges)) {
+                    revalidated.add(name);
+                    i.remove();
+                }
+            }
+            if (!revalidated.isEmpty()) {
+                revalidate(configuration, token, stage, revalidated);
+            }
+        }
+        if (missing.isEmpty()) {
+            return report(taskListener, new RetrievedVersions(new Stage(stage, artifacts), staleAges));
+        }
+
+        Stage fetched;
+        try {
+            fetched = fetch(configuration, taskListener, token, stage, missing, remember);
+        } catch (ClientException e) {
+            if (staleMode != StaleMode.ON_ERROR) {
+                throw e;
+            }
+            for (String name : missing) {
+                if (!serveStale(configuration, token, stage, name, maxStaleSeconds, artifacts, staleAges)) {
+                    throw e;
+                }
+            }
+            if (taskListener != null) {
+                taskListener.getLogger().println("Artifactz is unavailable: " + e.getMessage());
+            }
+            return report(taskListener, new RetrievedVersions(new Stage(stage, artifacts), staleAges));
+        }
+
+        if (fetched.getArtifacts() == null && artifacts.isEmpty()) {
+            return new RetrievedVersions(fetched, staleAges);
+        }
+        if (fetched.getArtifacts() != null) {
+            artifacts.addAll(fetched.getArtifacts());
+        }
+        return report(taskListener, new RetrievedVersions(new Stage(stage, artifacts), staleAges));
+    }
+
+    /**
+     * Retrieves the artifact versions at a number of stages, running the per stage retrievals concurrently.
+     *
+     * @return the retrieved versions keyed by the stage name, in the order of the given stages
+     * @throws ClientException the first error, if the versions cannot be retrieved at any of the stages
+     */
+    public static Map<String, RetrievedVersions> retrieveVersions(ConfigurationSnapshot configuration, TaskListener taskListener, String token, List<String> stages, List<String> names, boolean useCache, StaleMode staleMode, int maxStaleSeconds) throws ClientException, InterruptedException {
+        Map<String, RetrievedVersions> retrieved = new ConcurrentHashMap<>();
+        Map<String, Exception> errors = new ConcurrentHashMap<>();
+        FanOut.run(stages, MAX_STAGE_PARALLELISM, stage -> {
+            try {
+                retrieved.put(stage, retrieveVersions(configuration, taskListener, token, stage, names, useCache, staleMode, maxStaleSeconds));
+            } catch (ClientException | RuntimeException e) {
+                errors.put(stage, e);
+            }
+        });
+
+        Map<String, RetrievedVersions> result = new LinkedHashMap<>();
+        for (String stage : stages) {
+            Exception error = errors.get(stage);
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error != null) {
+                throw new ClientException("Stage '" + stage + "': " + error.getMessage());
+            }
+            result.put(stage, retrieved.get(stage));
+        }
+        return result;
+    }
+
+    private static Stage fetch(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names, boolean remember) throws ClientException, InterruptedException {
+        Flight flight = call(configuration, taskListener, token, stage, names);
+        Stage fetched = await(flight.result);
+        if (fetched.getArtifacts() != null) {
+            for (Version version : fetched.getArtifacts()) {
+                // the versions of the artifacts pushed since the call started are not cached
+                if (remember) {
+                    VersionCache.store(configuration, token, stage, version.getArtifactName(), version.getVersion(), flight.generation);
+                } else {
+                    VersionCache.put(configuration, token, stage, version.getArtifactName(), version.getVersion(), flight.generation);
+                }
+            }
+        }
+        return fetched;
+    }
+
+    private static boolean serveStale(ConfigurationSnapshot configuration, String token, String stage, String name, int maxStaleSeconds, List<Version> artifacts, Map<String, Long> staleAges) {
+        VersionCache.Entry entry = VersionCache.get(configuration, token, stage, name);
+        if (entry == null || entry.getAgeMillis() > TimeUnit.SECONDS.toMillis(maxStaleSeconds)) {
+            return false;
+        }
+        artifacts.add(new Version(name, null, null, null, null, entry.getVersion()));
+        staleAges.put(name, entry.getAgeMillis());
+        staleCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Refreshes the versions served stale in the background. Concurrent refreshes of the same versions are coalesced
+     * with each other and with the foreground requests.
+     */
+    private static void revalidate(ConfigurationSnapshot configuration, String token, String stage, List<String> names) {
+        try {
+            ArtifactzExecutor.get().submit(() -> {
+                try {
+                    fetch(configuration, null, token, stage, names, true);
+                } catch (ClientException | RuntimeException e) {
+                    logger.warn("Could not refresh the versions of {} at the stage '{}'", names, stage, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Too many pending Artifactz calls, the versions of {} at the stage '{}' are not refreshed", names, stage);
+        }
+    }
+
+    private static RetrievedVersions report(TaskListener taskListener, RetrievedVersions versions) {
+        if (taskListener != null) {
+            for (Map.Entry<String, Long> stale : versions.getStaleAges().entrySet()) {
+                taskListener.getLogger().println("Serving the last known version of '" + stale.getKey() + "', " + TimeUnit.MILLISECONDS.toSeconds(stale.getValue()) + " seconds old");
+            }
+        }
+        return versions;
+    }
+
+    private static Stage coalesce(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names) throws ClientException, InterruptedException {
+        return await(call(configuration, taskListener, token, stage, names).result);
+    }
+
+    /**
+     * Makes the call, or waits for the identical call in progress and takes it over if its caller is interrupted.
+     *
+     * @return the completed flight of the call
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    private static Flight call(ConfigurationSnapshot configuration, TaskListener taskListener, String token, String stage, List<String> names) throws InterruptedException {
+        Key key = new Key(configuration.getServerUrl(), token, stage, names);
+        while (true) {
+            Flight flight = new Flight(taskListener);
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                fly(configuration, token, stage, names, key, flight);
+                return flight;
+            }
+
+            coalescedCount.incrementAndGet();
+            existing.listener.join(taskListener);
+            try {
+                existing.result.get();
+            } catch (ExecutionException e) {
+                if (existing.abandoned) {
+                    continue;
+                }
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Performs the shared call on the thread of the first caller.
+     */
+    private static void fly(ConfigurationSnapshot configuration, String token, String stage, List<String> names, Key key, Flight flight) throws InterruptedException {
+        // the output of the call goes to the logs of all the builds waiting for it
+        TaskListener listener = flight.listener;
+        try {
+            Stage result;
+            if (configuration.getBatchWindowMillis() > 0) {
+                result = RetrieveBatcher.retrieveVersions(configuration, listener, token, stage, names);
+            } else {
+                try (ServiceClientCache.Lease lease = ServiceHelper.acquireClient(configuration, listener, token)) {
+                    ServiceClient client = lease.getClient();
+                    result = configuration.getRetryPolicy().read(listener, () -> HedgedRetrieve.call(configuration, ServiceHelper.withFeedback(listener, () -> client.retrieveVersions(stage, names.toArray(new String[0])))));
+                }
+            }
+            flight.result.complete(result);
+        } catch (ClientException | RuntimeException e) {
+            flight.result.completeExceptionally(e);
+        } catch (InterruptedException e) {
+            // the waiting callers make the call again rather than fail with the interruption of this one
+            flight.abandoned = true;
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Stage await(CompletableFuture<Stage> flight) throws ClientException, InterruptedException {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientException(cause.getMessage());
+        }
+    }
+
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public static long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public static long getStaleCount() {
+        return staleCount.get();
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Stage> result = new CompletableFuture<>();
+        private final SharedListener listener;
+        private final long generation = VersionCache.getGeneration();
+        private volatile boolean abandoned;
+
+        Flight(TaskListener taskListener) {
+            this.listener = new SharedListener(taskListener);
+        }
+    }
+
+    private static final class Key {
+        private final String serverUrl;
+        private final String tokenFingerprint;
+        private final String stage;
+        private final List<String> names;
+
+        Key(String serverUrl, String token, String stage, List<String> names) {
+            this.serverUrl = serverUrl;
+            this.tokenFingerprint = token != null ? DigestUtils.sha256Hex(token) : null;
+            this.stage = stage;
+            this.names = new ArrayList<>(new TreeSet<>(names));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(serverUrl, key.serverUrl) &&
+                    Objects.equals(tokenFingerprint, key.tokenFingerprint) &&
+                    Objects.equals(stage, key.stage) &&
+                    Objects.equals(names, key.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverUrl, tokenFingerprint, stage, names);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the retrieved versions to the environment variables named after the artifacts, e.g. the version of
+ * {@code document-manager-ui} to {@code ARTIFACTZ_DOCUMENT_MANAGER_UI}.
+ *
+ * The names are upper cased and any character other than a letter, a digit or an underscore is replaced with an
+ * underscore. When several artifact names map to the same variable, each of them gets a suffix made of the first
+ * characters of the hash of the artifact name, so none of them silently overrides the others and the names do not
+ * depend on the order of the artifacts.
+ */
+public final class VersionVariables {
+    private static final int SUFFIX_LENGTH = 8;
+
+    private VersionVariables() {
+    }
+
+    /**
+     * @param name the artifact, stage or prefix name
+     * @return the name usable as a part of the environment variable name
+     */
+    public static String normalize(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        for (char c : name.toUpperCase(Locale.ENGLISH).toCharArray()) {
+            result.append(c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' ? c : '_');
+        }
+        if (result.length() == 0 || result.charAt(0) >= '0' && result.charAt(0) <= '9') {
+            result.insert(0, '_');
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param prefix the variable name prefix
+     * @param versions the versions keyed by the artifact name, or the maps of them keyed by the stage name
+     * @param renamed receives the artifact names which got a suffix because of a collision, keyed by the variable name
+     * @return the versions keyed by the variable name
+     */
+    public static Map<String, String> toVariables(String prefix, Map<String, ?> versions, Map<String, String> renamed) {
+        String base = normalize(prefix).replaceAll("_+$", "");
+        Map<String, List<String[]>> candidates = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : versions.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                for (Map.Entry<?, ?> artifact : ((Map<?, ?>) entry.getValue()).entrySet()) {
+                    add(candidates, base + "_" + normalize(entry.getKey()), entry.getKey() + "/" + artifact.getKey(), String.valueOf(artifact.getKey()), artifact.getValue());
+                }
+            } else {
+                add(candidates, base, entry.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, String> variables = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String[]>> entry : candidates.entrySet()) {
+            List<String[]> sources = entry.getValue();
+            if (sources.size() == 1) {
+                variables.put(entry.getKey(), sources.get(0)[1]);
+                continue;
+            }
+            for (String[] source : sources) {
+                String variable = entry.getKey() + "_" + DigestUtils.sha1Hex(source[0]).substring(0, SUFFIX_LENGTH).toUpperCase(Locale.ENGLISH);
+                variables.put(variable, source[1]);
+                renamed.put(variable, source[0]);
+            }
+        }
+        return variables;
+    }
+
+    private static void add(Map<String, List<String[]>> candidates, String base, String source, String name, Object version) {
+        if (version == null) {
+            return;
+        }
+        candidates.computeIfAbsent(base + "_" + normalize(name), k -> new ArrayList<>()).add(new String[] { source, String.valueOf(version) });
+    }
+}
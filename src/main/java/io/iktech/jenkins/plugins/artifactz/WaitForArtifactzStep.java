@@ -0,0 +1,156 @@
+package io.iktech.jenkins.plugins.artifactz;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Waits for the Artifactz calls started by the {@code publishArtifact} and {@code pushArtifact} steps in the
+ * asynchronous mode and returns their results keyed by the call handles.
+ *
+ * The step does not hold a thread while waiting, the step context is completed once the last call is done.
+ */
+public class WaitForArtifactzStep extends Step {
+    private List<String> handles;
+    private boolean failOnError = true;
+
+    @DataBoundConstructor
+    public WaitForArtifactzStep() {
+    }
+
+    public List<String> getHandles() {
+        return handles;
+    }
+
+    /**
+     * @param handles the handles to wait for, all the calls of the run when not set
+     */
+    @DataBoundSetter
+    public void setHandles(List<String> handles) {
+        this.handles = handles;
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    @DataBoundSetter
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new WaitForArtifactzStep.Execution(this.handles != null ? new ArrayList<>(this.handles) : null, this.failOnError, context);
+    }
+
+    private static final class Execution extends StepExecution {
+        private static final long serialVersionUID = -2219564906216281474L;
+
+        private final List<String> handles;
+        private final boolean failOnError;
+
+        // the context is completed once, either when the calls are done or when the step is stopped
+        private final transient AtomicBoolean completed = new AtomicBoolean();
+
+        Execution(List<String> handles, boolean failOnError, StepContext context) {
+            super(context);
+            this.handles = handles;
+            this.failOnError = failOnError;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+            TaskListener taskListener = getContext().get(TaskListener.class);
+            Map<String, PendingCalls.Call> calls = PendingCalls.get(run, this.handles);
+            taskListener.getLogger().println("Waiting for " + calls.size() + " Artifactz call(s)");
+
+            CompletableFuture<?>[] results = calls.values().stream().map(PendingCalls.Call::getResult).toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(results).whenComplete((ignored, t) -> complete(taskListener, calls));
+            return false;
+        }
+
+        private void complete(TaskListener taskListener, Map<String, PendingCalls.Call> calls) {
+            if (this.completed.get()) {
+                return;
+            }
+            Map<String, Object> results = new LinkedHashMap<>();
+            List<String> errors = new ArrayList<>();
+            for (Map.Entry<String, PendingCalls.Call> entry : calls.entrySet()) {
+                PendingCalls.Call call = entry.getValue();
+                try {
+                    results.put(entry.getKey(), call.getResult().join());
+                } catch (CompletionException | CancellationException e) {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    String message = "The " + call.getDescription() + " failed: " + cause.getMessage();
+                    taskListener.error(message);
+                    errors.add(message);
+                }
+            }
+
+            if (!this.completed.compareAndSet(false, true)) {
+                return;
+            }
+            if (!errors.isEmpty() && this.failOnError) {
+                getContext().onFailure(new AbortException(errors.size() + " of " + calls.size() + " Artifactz calls failed: " + String.join(", ", errors)));
+            } else {
+                getContext().onSuccess(results);
+            }
+        }
+
+        @Override
+        public void stop(@Nonnull Throwable cause) throws Exception {
+            if (this.completed.compareAndSet(false, true)) {
+                getContext().onFailure(cause);
+            }
+        }
+
+        @Override
+        public void onResume() {
+            getContext().onFailure(new Exception("Resume after a restart not supported for Artifactz steps"));
+        }
+
+        @Override
+        public String getStatus() {
+            return "waiting for the Artifactz calls";
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "waitForArtifactz";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Wait for Artifactz Calls";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.iktech.jenkins.plugins.artifactz.AgentServiceCall;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import jenkins.model.Jenkins;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class AgentServiceCallTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+    }
+
+    @Test
+    public void callIsPerformedAfterTransferTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), eq("1.0.0"))).thenReturn("1.0.0");
+
+        AgentServiceCall<String> call = new AgentServiceCall<>(Configuration.snapshot(), null, "value",
+                new AgentServiceCall.Push("Development", "test-artifact", "1.0.0"));
+        assertEquals("1.0.0", deserialize(serialize(call)).call());
+    }
+
+    @Test
+    public void publishIsPerformedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        new AgentServiceCall<>(Configuration.snapshot(), null, "value",
+                new AgentServiceCall.Publish("Development", null, "test-artifact", null, null, "JAR", "io.iktech", "test", "1.0.0")).call();
+
+        verify(client).publishArtifact("Development", null, "test-artifact", null, null, "JAR", "io.iktech", "test", "1.0.0");
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AgentServiceCall<String> deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (AgentServiceCall<String>) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzExecutor;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class ArtifactzExecutorTest {
+    @Test
+    public void callReturnsResultTest() throws Exception {
+        assertEquals("1.0.0", ArtifactzExecutor.call(() -> "1.0.0"));
+    }
+
+    @Test
+    public void callRunsOnExecutorThreadTest() throws Exception {
+        String caller = Thread.currentThread().getName();
+        assertNotEquals(caller, ArtifactzExecutor.call(() -> Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void callRethrowsClientExceptionTest() throws Exception {
+        try {
+            ArtifactzExecutor.call(() -> {
+                throw new ClientException("test exception");
+            });
+            fail("ClientException expected");
+        } catch (ClientException e) {
+            assertEquals("test exception", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectedCallsAreCountedTest() throws Exception {
+        ThreadPoolExecutor pool = ArtifactzExecutor.create(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            long rejected = ArtifactzExecutor.getRejectedCount();
+            pool.submit(() -> {
+                release.await();
+                return null;
+            });
+            pool.submit(() -> null);
+            try {
+                pool.submit(() -> null);
+                fail("RejectedExecutionException expected");
+            } catch (RejectedExecutionException e) {
+                assertEquals(rejected + 1, ArtifactzExecutor.getRejectedCount());
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+}
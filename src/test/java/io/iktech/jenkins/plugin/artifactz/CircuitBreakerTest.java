@@ -0,0 +1,80 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.CircuitBreaker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        CircuitBreaker.configure(50, 0, 2, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        CircuitBreaker.configure(CircuitBreaker.DEFAULT_FAILURE_RATE_PERCENT, CircuitBreaker.DEFAULT_SLOW_CALL_MILLIS,
+                CircuitBreaker.DEFAULT_WINDOW_SIZE, CircuitBreaker.DEFAULT_OPEN_SECONDS, CircuitBreaker.DEFAULT_PROBE_CALLS);
+    }
+
+    @Test
+    public void breakerOpensAndRecoversTest() throws Exception {
+        callFailing("503");
+        callFailing("503");
+        assertEquals(CircuitBreaker.State.OPEN, CircuitBreaker.getState());
+
+        long rejected = CircuitBreaker.getRejectedCount();
+        try {
+            succeed();
+            fail("The call is expected to be rejected");
+        } catch (CircuitBreaker.OpenException e) {
+            assertEquals(rejected + 1, CircuitBreaker.getRejectedCount());
+        }
+        assertEquals(2, calls.get());
+
+        Thread.sleep(1100);
+        succeed();
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreaker.getState());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void failedProbeReopensBreakerTest() throws Exception {
+        callFailing("503");
+        callFailing("503");
+        Thread.sleep(1100);
+
+        callFailing("503");
+        assertEquals(CircuitBreaker.State.OPEN, CircuitBreaker.getState());
+    }
+
+    @Test
+    public void requestErrorsDoNotOpenBreakerTest() throws Exception {
+        callFailing("Artifact not found");
+        callFailing("Artifact not found");
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreaker.getState());
+    }
+
+    private void succeed() throws Exception {
+        CircuitBreaker.call(() -> calls.incrementAndGet(), e -> true);
+    }
+
+    private void callFailing(String message) throws Exception {
+        try {
+            CircuitBreaker.call(() -> {
+                calls.incrementAndGet();
+                throw new ClientException(message);
+            }, e -> e.getMessage().contains("503"));
+        } catch (ClientException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzExecutor;
+import io.iktech.jenkins.plugins.artifactz.ConcurrencyLimiter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimiterTest {
+    @After
+    public void tearDown() {
+        ConcurrencyLimiter.configure(ConcurrencyLimiter.DEFAULT_MAX_LIMIT);
+    }
+
+    @Test
+    public void failuresDecreaseLimitTest() throws Exception {
+        ConcurrencyLimiter.configure(ConcurrencyLimiter.DEFAULT_MAX_LIMIT);
+        int limit = ConcurrencyLimiter.getLimit();
+
+        try {
+            ConcurrencyLimiter.call(true, () -> {
+                throw new ClientException("503");
+            }, e -> true);
+            fail("The call is expected to fail");
+        } catch (ClientException e) {
+            assertEquals("503", e.getMessage());
+        }
+        assertTrue(ConcurrencyLimiter.getLimit() < limit);
+    }
+
+    @Test
+    public void readsAreGrantedBeforeWritesTest() throws Exception {
+        ConcurrencyLimiter.configure(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread holder = new Thread(() -> call(false, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        holder.start();
+        started.await();
+
+        long queued = ConcurrencyLimiter.getQueuedCount();
+        Thread write = new Thread(() -> call(false, () -> order.add("write")));
+        write.start();
+        waitForQueue(1);
+        Thread read = new Thread(() -> call(true, () -> order.add("read")));
+        read.start();
+        waitForQueue(2);
+        assertEquals(queued + 2, ConcurrencyLimiter.getQueuedCount());
+
+        release.countDown();
+        holder.join();
+        write.join();
+        read.join();
+
+        assertEquals("read", order.get(0));
+        assertEquals("write", order.get(1));
+        assertEquals(0, ConcurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    public void writesAreNotStarvedByReadsTest() throws Exception {
+        ConcurrencyLimiter.configure(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread holder = new Thread(() -> call(true, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        holder.start();
+        started.await();
+
+        List<Thread> callers = new ArrayList<>();
+        Thread write = new Thread(() -> call(false, () -> order.add("write")));
+        callers.add(write);
+        write.start();
+        waitForQueue(1);
+        for (int i = 0; i < ConcurrencyLimiter.MAX_READS_AHEAD + 2; i++) {
+            Thread read = new Thread(() -> call(true, () -> order.add("read")));
+            callers.add(read);
+            read.start();
+            waitForQueue(i + 2);
+        }
+
+        release.countDown();
+        holder.join();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        assertEquals(ConcurrencyLimiter.MAX_READS_AHEAD, order.indexOf("write"));
+        assertEquals(0, ConcurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    public void limitIsBoundByThePoolSizeTest() throws Exception {
+        ConcurrencyLimiter.configure(ConcurrencyLimiter.DEFAULT_MAX_LIMIT, 10);
+        assertEquals(5, ConcurrencyLimiter.getLimit());
+
+        ConcurrencyLimiter.configure(4, 10);
+        assertEquals(2, ConcurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void disabledLimiterDoesNotQueueTest() throws Exception {
+        ConcurrencyLimiter.configure(0);
+        long queued = ConcurrencyLimiter.getQueuedCount();
+
+        assertEquals("value", ConcurrencyLimiter.call(false, () -> "value", e -> true));
+        assertEquals(queued, ConcurrencyLimiter.getQueuedCount());
+    }
+
+    private static void call(boolean read, ArtifactzExecutor.ServiceCall<?> call) {
+        try {
+            ConcurrencyLimiter.call(read, call, e -> true);
+        } catch (ClientException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitForQueue(int size) throws InterruptedException {
+        while (ConcurrencyLimiter.getWaiting() < size) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import hudson.BulkChange;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.ConfigurationSnapshot;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class ConfigurationTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void snapshotIsPublishedOnSaveTest() {
+        Configuration configuration = Configuration.get();
+        ConfigurationSnapshot before = Configuration.snapshot();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.setProxy("http://proxy:3128");
+
+        ConfigurationSnapshot after = Configuration.snapshot();
+        assertNotSame(before, after);
+        assertEquals("http://localhost:5002", after.getServerUrl());
+        assertEquals("http://proxy:3128", after.getProxy());
+    }
+
+    @Test
+    public void snapshotIsPublishedOnLoadTest() {
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.setCredentialsId("test");
+
+        configuration.load();
+
+        assertEquals("http://localhost:5002", Configuration.snapshot().getServerUrl());
+        assertEquals("test", Configuration.snapshot().getCredentialsId());
+    }
+
+    @Test
+    public void updateAppliesAllSettingsAtOnceTest() throws Exception {
+        Configuration configuration = Configuration.get();
+        configuration.update("http://localhost:5002", "jenkins", "test", "http://proxy:3128", "proxy-test");
+
+        ConfigurationSnapshot snapshot = Configuration.snapshot();
+        assertEquals("http://localhost:5002", snapshot.getServerUrl());
+        assertEquals("jenkins", snapshot.getSender());
+        assertEquals("test", snapshot.getCredentialsId());
+        assertEquals("http://proxy:3128", snapshot.getProxy());
+        assertEquals("proxy-test", snapshot.getProxyCredentialsId());
+    }
+
+    @Test
+    public void snapshotIsNotPublishedInsideBulkChangeTest() throws Exception {
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+
+        try (BulkChange bc = new BulkChange(configuration)) {
+            configuration.setServerUrl("http://localhost:5003");
+            configuration.setProxy("http://proxy:3128");
+            assertEquals("http://localhost:5002", Configuration.snapshot().getServerUrl());
+            bc.commit();
+        }
+
+        assertEquals("http://localhost:5003", Configuration.snapshot().getServerUrl());
+        assertEquals("http://proxy:3128", Configuration.snapshot().getProxy());
+    }
+}
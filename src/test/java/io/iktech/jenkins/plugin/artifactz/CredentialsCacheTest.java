@@ -0,0 +1,92 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.util.Secret;
+import io.iktech.jenkins.plugins.artifactz.CredentialsCache;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CredentialsCacheTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+    }
+
+    @Test
+    public void tokenIsResolvedOnceTest() throws Exception {
+        FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        CredentialsCache cache = CredentialsCache.get();
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+
+        assertEquals("value", cache.getToken(build, "test"));
+        assertEquals("value", cache.getToken(build, "test"));
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void tokenIsResolvedPerRunTest() throws Exception {
+        FreeStyleProject project = j.createFreeStyleProject();
+        FreeStyleBuild first = j.buildAndAssertSuccess(project);
+        FreeStyleBuild second = j.buildAndAssertSuccess(project);
+        CredentialsCache cache = CredentialsCache.get();
+        long misses = cache.getMissCount();
+
+        assertEquals("value", cache.getToken(first, "test"));
+        assertEquals("value", cache.getToken(second, "test"));
+        assertEquals(misses + 2, cache.getMissCount());
+    }
+
+    @Test
+    public void missingTokenIsNotCachedTest() throws Exception {
+        FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        CredentialsCache cache = CredentialsCache.get();
+        long misses = cache.getMissCount();
+
+        assertNull(cache.getToken(build, "missing"));
+        assertNull(cache.getToken(build, "missing"));
+        assertEquals(misses + 2, cache.getMissCount());
+    }
+
+    @Test
+    public void credentialStoreChangeInvalidatesCacheTest() throws Exception {
+        FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        CredentialsCache cache = CredentialsCache.get();
+        assertEquals("value", cache.getToken(build, "test"));
+
+        StringCredentialsImpl c = new StringCredentialsImpl(CredentialsScope.GLOBAL, "another", "another", Secret.fromString("another-value"));
+        CredentialsProvider.lookupStores(j).iterator().next().addCredentials(Domain.global(), c);
+
+        assertEquals(0, cache.getSize());
+        long misses = cache.getMissCount();
+        assertEquals("value", cache.getToken(build, "test"));
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void proxyCredentialsTest() {
+        CredentialsCache cache = CredentialsCache.get();
+        long hits = cache.getHitCount();
+
+        assertNotNull(cache.getProxyCredentials("proxy-test"));
+        assertNotNull(cache.getProxyCredentials("proxy-test"));
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,88 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.iktech.jenkins.plugins.artifactz.ConcurrencyLimiter;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.HedgedRetrieve;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HedgedRetrieveTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        Configuration.get().setHedgePercentile(50);
+        Configuration.get().setHedgeBudgetPercent(100);
+    }
+
+    @Test
+    public void slowCallIsHedgedTest() throws Exception {
+        // record fast latencies first, so the hedging delay is short
+        for (int i = 0; i < 30; i++) {
+            HedgedRetrieve.call(Configuration.snapshot(), () -> "fast");
+        }
+
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        long hedged = HedgedRetrieve.getHedgedCount();
+        long wins = HedgedRetrieve.getHedgeWinCount();
+
+        String result = HedgedRetrieve.call(Configuration.snapshot(), () -> {
+            if (calls.incrementAndGet() == 1) {
+                never.await();
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+        assertEquals(hedged + 1, HedgedRetrieve.getHedgedCount());
+        while (HedgedRetrieve.getHedgeWinCount() == wins) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void noHedgeWithoutRoomUnderTheLimitTest() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            HedgedRetrieve.call(Configuration.snapshot(), () -> "fast");
+        }
+
+        ConcurrencyLimiter.configure(1);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            long hedged = HedgedRetrieve.getHedgedCount();
+
+            // the retrieve holds the only permit, so there is none left for the hedge
+            String result = ConcurrencyLimiter.call(true, () -> HedgedRetrieve.call(Configuration.snapshot(), () -> {
+                calls.incrementAndGet();
+                Thread.sleep(500);
+                return "slow";
+            }), e -> false);
+
+            assertEquals("slow", result);
+            assertEquals(1, calls.get());
+            assertEquals(hedged, HedgedRetrieve.getHedgedCount());
+            assertEquals(0, ConcurrencyLimiter.getInFlight());
+        } finally {
+            ConcurrencyLimiter.configure(ConcurrencyLimiter.DEFAULT_MAX_LIMIT);
+        }
+    }
+
+    @Test
+    public void disabledHedgingRunsCallInlineTest() throws Exception {
+        Configuration.get().setHedgePercentile(0);
+        Thread caller = Thread.currentThread();
+        assertTrue(HedgedRetrieve.call(Configuration.snapshot(), () -> Thread.currentThread() == caller));
+    }
+}
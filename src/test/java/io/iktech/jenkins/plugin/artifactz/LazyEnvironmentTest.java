@@ -0,0 +1,40 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.TaskListener;
+import io.iktech.jenkins.plugins.artifactz.LazyEnvironment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyEnvironmentTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void staticValuesDoNotResolveEnvironmentTest() throws Exception {
+        FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        LazyEnvironment env = new LazyEnvironment(build, TaskListener.NULL);
+
+        assertEquals("Development", env.expand("Development"));
+        assertEquals("", env.expand(""));
+        assertNull(env.expand(null));
+        assertFalse(env.isResolved());
+    }
+
+    @Test
+    public void variablesAreExpandedTest() throws Exception {
+        FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        LazyEnvironment env = new LazyEnvironment(build, TaskListener.NULL);
+
+        assertEquals("Development", env.expand("Development"));
+        assertEquals("1.0." + build.getNumber(), env.expand("1.0.${BUILD_NUMBER}"));
+        assertTrue(env.isResolved());
+        assertEquals("test-artifact-" + build.getNumber(), env.expand("test-artifact-$BUILD_NUMBER"));
+    }
+}
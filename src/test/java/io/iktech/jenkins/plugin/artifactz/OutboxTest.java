@@ -0,0 +1,196 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import hudson.model.TaskListener;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.Outbox;
+import io.iktech.jenkins.plugins.artifactz.OutboxEntry;
+import io.jenkins.cli.shaded.org.apache.commons.io.FileUtils;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class OutboxTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+        configuration.setRetryMaxAttempts(1);
+    }
+
+    @Test
+    public void deferredPushIsDeliveredLaterTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenThrow(new ClientException("503 Service Unavailable"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def version = pushArtifact stage: 'Development', name: 'test-artifact', version: '1.0.0', deferred: true\n" +
+                "  echo \"Version: ${version}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Deferred the push of artifact 'test-artifact': 503 Service Unavailable"));
+        assertThat(s, containsString("Version: 1.0.0"));
+
+        Outbox outbox = Outbox.get();
+        assertEquals(1, outbox.getSize());
+        OutboxEntry entry = outbox.getEntries().get(0);
+        assertEquals(OutboxEntry.Operation.PUSH, entry.getOperation());
+        assertEquals(build.getExternalizableId(), entry.getRunId());
+
+        reset(client);
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), eq("1.0.0"))).thenReturn("1.0.0");
+        assertEquals(1, outbox.drain(TaskListener.NULL));
+        assertEquals(0, outbox.getSize());
+        verify(client, times(1)).pushArtifact("Development", "test-artifact", "1.0.0");
+    }
+
+    @Test
+    public void pushIsNotDeferredByDefaultTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenThrow(new ClientException("503 Service Unavailable"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  pushArtifact stage: 'Development', name: 'test-artifact', version: '1.0.0'\n" +
+                "}", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Error while pushing artifact version: 503 Service Unavailable"));
+        assertEquals(0, Outbox.get().getSize());
+    }
+
+    @Test
+    public void pushWithoutVersionIsNotDeferredTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenThrow(new ClientException("503 Service Unavailable"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  pushArtifact stage: 'Development', name: 'test-artifact', deferred: true\n" +
+                "}", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("The push of artifact 'test-artifact' has no version, it is not deferred"));
+        assertThat(s, containsString("Error while pushing artifact version: 503 Service Unavailable"));
+        assertEquals(0, Outbox.get().getSize());
+    }
+
+    @Test
+    public void entriesSurviveReloadTest() throws Exception {
+        WorkflowRun build = build();
+        Outbox outbox = Outbox.get();
+        outbox.add(push(build, "first"));
+        outbox.add(push(build, "second"));
+        outbox.add(push(build, "third"));
+        outbox.remove(outbox.getEntries().get(1).getId());
+
+        List<OutboxEntry> reloaded = new Outbox().getEntries();
+        assertEquals(2, reloaded.size());
+        assertEquals("first", reloaded.get(0).getName());
+        assertEquals("third", reloaded.get(1).getName());
+        assertEquals("1.0.0", reloaded.get(1).getVersion());
+    }
+
+    @Test
+    public void rejectedEntryHoldsBackLaterOperationsTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(any(), eq("first"), any())).thenThrow(new ClientException("Artifact not found"));
+        when(client.pushArtifact(any(), eq("second"), any())).thenReturn("1.0.0");
+
+        WorkflowRun build = build();
+        Outbox outbox = Outbox.get();
+        outbox.add(push(build, "first"));
+        outbox.add(push(build, "first"));
+        outbox.add(push(build, "second"));
+
+        assertEquals(1, outbox.drain(TaskListener.NULL));
+        List<OutboxEntry> entries = outbox.getEntries();
+        assertEquals(2, entries.size());
+        assertTrue(entries.get(0).isParked());
+        assertEquals("Artifact not found", entries.get(0).getLastError());
+        verify(client, times(1)).pushArtifact(any(), eq("first"), any());
+    }
+
+    @Test
+    public void parkedEntryStaysParkedAfterReloadTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(any(), eq("first"), any())).thenThrow(new ClientException("Artifact not found"));
+
+        WorkflowRun build = build();
+        Outbox outbox = Outbox.get();
+        outbox.add(push(build, "first"));
+        outbox.add(push(build, "second"));
+        outbox.drain(TaskListener.NULL);
+
+        List<OutboxEntry> reloaded = new Outbox().getEntries();
+        assertEquals(1, reloaded.size());
+        assertTrue(reloaded.get(0).isParked());
+        assertEquals("Artifact not found", reloaded.get(0).getLastError());
+
+        outbox.retryNow();
+        reloaded = new Outbox().getEntries();
+        assertEquals(1, reloaded.size());
+        assertFalse(reloaded.get(0).isParked());
+    }
+
+    private WorkflowRun build() throws Exception {
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        return j.buildAndAssertSuccess(project);
+    }
+
+    private static OutboxEntry push(WorkflowRun build, String name) {
+        OutboxEntry entry = new OutboxEntry();
+        entry.setOperation(OutboxEntry.Operation.PUSH);
+        entry.setRunId(build.getExternalizableId());
+        entry.setJobName(build.getParent().getFullName());
+        entry.setCredentialsId("test");
+        entry.setStage("Development");
+        entry.setName(name);
+        entry.setVersion("1.0.0");
+        return entry;
+    }
+}
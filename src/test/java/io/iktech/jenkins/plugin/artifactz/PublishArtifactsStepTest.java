@@ -0,0 +1,146 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import hudson.FilePath;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.ManifestEntry;
+import io.iktech.jenkins.plugins.artifactz.ManifestReader;
+import io.jenkins.cli.shaded.org.apache.commons.io.FileUtils;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class PublishArtifactsStepTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+    }
+
+    @Test
+    public void manifestIsReadInChunksTest() throws Exception {
+        StringBuilder json = new StringBuilder("{\"version\": 1, \"artifacts\": [");
+        int total = ManifestReader.CHUNK_SIZE * 2 + 1;
+        for (int i = 0; i < total; i++) {
+            json.append(i > 0 ? "," : "").append("{\"name\": \"artifact-").append(i).append("\", \"type\": \"DockerImage\", \"version\": \"1.0.").append(i).append("\"}");
+        }
+        File manifest = folder.newFile("manifest.json");
+        FileUtils.writeStringToFile(manifest, json.append("]}").toString(), StandardCharsets.UTF_8);
+
+        List<Integer> chunks = new ArrayList<>();
+        List<ManifestEntry> entries = new ArrayList<>();
+        int count = new FilePath(manifest).act(new ManifestReader(chunk -> {
+            chunks.add(chunk.size());
+            entries.addAll(chunk);
+        }));
+
+        assertEquals(total, count);
+        assertEquals(3, chunks.size());
+        assertEquals(1, (int) chunks.get(2));
+        assertEquals("artifact-200", entries.get(200).getName());
+        assertEquals("1.0.200", entries.get(200).getVersion());
+    }
+
+    @Test
+    public void publishYamlManifestTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  writeFile file: 'manifest.yaml', text: '''\n" +
+                "- name: first\n" +
+                "  type: DockerImage\n" +
+                "  version: 1.0.0\n" +
+                "- name: second\n" +
+                "  type: JAR\n" +
+                "  groupId: io.iktech\n" +
+                "  artifactId: second\n" +
+                "  version: 2.0.0\n" +
+                "  flow: java\n" +
+                "'''\n" +
+                "  def versions = publishArtifacts manifest: 'manifest.yaml', stage: 'Development', flow: 'standard'\n" +
+                "  echo \"Published: ${versions.size()}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile(), StandardCharsets.UTF_8);
+        assertThat(s, containsString("Successfully published 2 artifact versions"));
+        assertThat(s, containsString("Published: 2"));
+        verify(client).publishArtifact(eq("Development"), any(), eq("first"), any(), eq("standard"), eq("DockerImage"), any(), any(), eq("1.0.0"));
+        verify(client).publishArtifact(eq("Development"), any(), eq("second"), any(), eq("java"), eq("JAR"), eq("io.iktech"), eq("second"), eq("2.0.0"));
+    }
+
+    @Test
+    public void partialFailureTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        doThrow(new ClientException("test exception")).when(client).publishArtifact(eq("Development"), any(), eq("second"), any(), any(), any(), any(), any(), any());
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  writeFile file: 'manifest.json', text: '[{\"name\": \"first\", \"type\": \"DockerImage\", \"version\": \"1.0.0\"}, {\"name\": \"second\", \"type\": \"DockerImage\", \"version\": \"2.0.0\"}]'\n" +
+                "  def versions = publishArtifacts manifest: 'manifest.json', stage: 'Development', failOnError: false\n" +
+                "  echo \"Published: ${versions}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile(), StandardCharsets.UTF_8);
+        assertThat(s, containsString("Error while publishing artifact 'second': test exception"));
+        assertThat(s, containsString("Failed to publish 1 of 2 artifacts: second"));
+        assertThat(s, containsString("Published: [first:1.0.0]"));
+    }
+
+    @Test
+    public void missingManifestTest() throws Exception {
+        TestHelper.setupClient();
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  publishArtifacts manifest: 'missing.json', stage: 'Development'\n" +
+                "}", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        String s = FileUtils.readFileToString(build.getLogFile(), StandardCharsets.UTF_8);
+        assertThat(s, containsString("Manifest 'missing.json' does not exist in the workspace"));
+    }
+}
@@ -0,0 +1,125 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.PushArtifactsStep;
+import io.jenkins.cli.shaded.org.apache.commons.io.FileUtils;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class PushArtifactsStepTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+    }
+
+    @Test
+    public void gettersAndSettersTest() throws Exception {
+        PushArtifactsStep test = new PushArtifactsStep(null, null);
+        test.setStage("Development");
+        test.setNames(Arrays.asList("first", "second=1.0.0"));
+        test.setParallelism(4);
+        test.setFailOnError(false);
+        assertEquals("Development", test.getStage());
+        assertEquals(Arrays.asList("first", "second=1.0.0"), test.getNames());
+        assertEquals(4, test.getParallelism());
+        assertFalse(test.isFailOnError());
+    }
+
+    @Test
+    public void pushArtifactsSuccessTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        when(client.pushArtifact(eq("Development"), eq("first"), any())).thenReturn("1.0.0");
+        when(client.pushArtifact(eq("Development"), eq("second"), eq("2.0.0"))).thenReturn("2.0.0");
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def versions = pushArtifacts stage: 'Development', names: ['first', 'second=2.0.0'], parallelism: 2\n" +
+                "  echo \"Versions: ${versions}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Successfully pushed artifact versions"));
+        assertThat(s, containsString("Versions: [first:1.0.0, second:2.0.0]"));
+        verify(client).pushArtifact(eq("Development"), eq("first"), isNull());
+    }
+
+    @Test
+    public void partialFailureTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        when(client.pushArtifact(eq("Development"), eq("first"), any())).thenReturn("1.0.0");
+        when(client.pushArtifact(eq("Development"), eq("second"), any())).thenThrow(new ClientException("test exception"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def versions = pushArtifacts stage: 'Development', names: ['first', 'second'], failOnError: false\n" +
+                "  echo \"Versions: ${versions}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Error while pushing artifact 'second': test exception"));
+        assertThat(s, containsString("Failed to push 1 of 2 artifacts: second"));
+        assertThat(s, containsString("Versions: [first:1.0.0]"));
+    }
+
+    @Test
+    public void failureFailsStepTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        when(client.pushArtifact(eq("Development"), eq("first"), any())).thenReturn("1.0.0");
+        when(client.pushArtifact(eq("Development"), eq("second"), any())).thenThrow(new ClientException("test exception"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  pushArtifacts stage: 'Development', names: ['first', 'second']\n" +
+                "}", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Pushed artifact 'first', version 1.0.0"));
+        assertThat(s, containsString("Failed to push 1 of 2 artifacts: second"));
+        verify(client).pushArtifact(eq("Development"), eq("first"), isNull());
+    }
+}
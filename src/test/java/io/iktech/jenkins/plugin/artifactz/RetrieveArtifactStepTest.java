@@ -7,6 +7,7 @@ import io.artifactz.client.model.Stage;
 import io.artifactz.client.model.Version;
 import io.iktech.jenkins.plugins.artifactz.Configuration;
 import io.iktech.jenkins.plugins.artifactz.RetrieveArtifactsStep;
+import io.iktech.jenkins.plugins.artifactz.VersionCache;
 import io.jenkins.cli.shaded.org.apache.commons.io.FileUtils;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
@@ -89,6 +90,58 @@ public class RetrieveArtifactStepTest {
         assertThat(s, containsString("Version: 1.0.0"));
     }
 
+    @Test
+    public void retrieveMultipleStagesTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        List<Version> development = new ArrayList<>();
+        development.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.1"));
+        List<Version> production = new ArrayList<>();
+        production.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(new Stage("Development", development));
+        when(client.retrieveVersions(eq("Production"), eq("test-artifact"))).thenReturn(new Stage("Production", production));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def result = retrieveArtifacts stages: ['Development', 'Production'], names: ['test-artifact']\n" +
+                "  echo \"Development: ${result['Development']['test-artifact']}, Production: ${result['Production']['test-artifact']}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Successfully retrieved artifact versions"));
+        assertThat(s, containsString("Development: 1.0.1, Production: 1.0.0"));
+    }
+
+    @Test
+    public void staleVersionsAreReturnedWhenDetailedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        VersionCache.invalidateAll();
+
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact")))
+                .thenReturn(new Stage("Development", artifacts))
+                .thenThrow(new ClientException("Service unavailable"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def fresh = retrieveArtifacts stage: 'Development', names: ['test-artifact'], staleMode: 'ON_ERROR', detailed: true\n" +
+                "  echo \"Fresh: ${fresh.versions['test-artifact']}, stale: ${fresh.stale.containsKey('test-artifact')}\"\n" +
+                "  def served = retrieveArtifacts stage: 'Development', names: ['test-artifact'], staleMode: 'ON_ERROR', detailed: true\n" +
+                "  echo \"Served: ${served.versions['test-artifact']}, stale: ${served.stale.containsKey('test-artifact')}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Fresh: 1.0.0, stale: false"));
+        assertThat(s, containsString("Served: 1.0.0, stale: true"));
+    }
+
     @Test
     public void retrieveArtifactSuccessEmptyDataSetTest() throws Exception {
         ServiceClient client = TestHelper.setupClient();
@@ -8,6 +8,7 @@ import io.artifactz.client.ServiceClientBuilder;
 import io.artifactz.client.exception.ClientException;
 import io.artifactz.client.model.Stage;
 import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzEnvironmentAction;
 import io.iktech.jenkins.plugins.artifactz.Configuration;
 import io.iktech.jenkins.plugins.artifactz.Name;
 import io.iktech.jenkins.plugins.artifactz.RetrieveArtifactsBuildStep;
@@ -22,14 +23,17 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -114,6 +118,97 @@ public class RetrieveArtifactsBuildStepTest {
         assertEquals("{\"test-artifact\":\"1.0.0\"}", vars.get("ARTIFACTZ_VERSION_DATA"));
     }
 
+    @Test
+    public void versionsAreStoredOutsideBuildXmlTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(new Stage("Development", artifacts));
+        FreeStyleProject project = j.createFreeStyleProject();
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+        List<Name> names = new ArrayList<>();
+        Name name = new Name();
+        name.setName("test-artifact");
+        names.add(name);
+
+        project.getBuildersList().add(new RetrieveArtifactsBuildStep(names, "Development", null));
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+
+        assertThat(FileUtils.readFileToString(new File(build.getRootDir(), "build.xml")), not(containsString("test-artifact")));
+        assertEquals("{\"test-artifact\":\"1.0.0\"}", FileUtils.readFileToString(new File(build.getRootDir(), "artifactz/versions-0.json")));
+
+        build.reload();
+        ArtifactzEnvironmentAction action = build.getAction(ArtifactzEnvironmentAction.class);
+        assertNotNull(action);
+        assertEquals("{\"test-artifact\":\"1.0.0\"}", action.getEnvironment().get("ARTIFACTZ_VERSION_DATA"));
+        assertEquals("{\"test-artifact\":\"1.0.0\"}", build.getEnvironment().get("ARTIFACTZ_VERSION_DATA"));
+    }
+
+    @Test
+    public void repeatedRetrievesShareOneActionTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        List<Version> development = new ArrayList<>();
+        development.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+        List<Version> production = new ArrayList<>();
+        production.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "0.9.0"));
+
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(new Stage("Development", development));
+        when(client.retrieveVersions(eq("Production"), eq("test-artifact"))).thenReturn(new Stage("Production", production));
+        FreeStyleProject project = j.createFreeStyleProject();
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+        List<Name> names = new ArrayList<>();
+        Name name = new Name();
+        name.setName("test-artifact");
+        names.add(name);
+
+        project.getBuildersList().add(new RetrieveArtifactsBuildStep(names, "Development", "DEVELOPMENT_VERSIONS"));
+        project.getBuildersList().add(new RetrieveArtifactsBuildStep(names, "Production", "PRODUCTION_VERSIONS"));
+        project.getBuildersList().add(new RetrieveArtifactsBuildStep(names, "Production", "DEVELOPMENT_VERSIONS"));
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+
+        assertEquals(1, build.getActions(ArtifactzEnvironmentAction.class).size());
+        EnvVars vars = build.getEnvironment();
+        assertEquals("{\"test-artifact\":\"0.9.0\"}", vars.get("DEVELOPMENT_VERSIONS"));
+        assertEquals("{\"test-artifact\":\"0.9.0\"}", vars.get("PRODUCTION_VERSIONS"));
+    }
+
+    @Test
+    public void perArtifactVariablesTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(new Stage("Development", artifacts));
+        FreeStyleProject project = j.createFreeStyleProject();
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+        List<Name> names = new ArrayList<>();
+        Name name = new Name();
+        name.setName("test-artifact");
+        names.add(name);
+
+        RetrieveArtifactsBuildStep step = new RetrieveArtifactsBuildStep(names, "Development", null);
+        step.setVariablePrefix("ARTIFACTZ");
+        project.getBuildersList().add(step);
+        FreeStyleBuild build = j.buildAndAssertSuccess(project);
+
+        EnvVars vars = build.getEnvironment();
+        assertEquals("1.0.0", vars.get("ARTIFACTZ_TEST_ARTIFACT"));
+        assertNull(vars.get("ARTIFACTZ_VERSION_DATA"));
+    }
+
     @Test
     public void retrieveArtifactEmptyDataSetTest() throws Exception {
         ServiceClient client = TestHelper.setupClient();
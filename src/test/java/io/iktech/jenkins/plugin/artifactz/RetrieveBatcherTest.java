@@ -0,0 +1,88 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.RetrieveBatcher;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class RetrieveBatcherTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.setBatchWindowMillis(500);
+    }
+
+    @Test
+    public void concurrentRequestsForTheSameStageAreBatchedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("a", "A", "DockerImage", null, null, "1.0.0"));
+        artifacts.add(new Version("b", "B", "DockerImage", null, null, "2.0.0"));
+        when(client.retrieveVersions(eq("Development"), eq("a"), eq("b"))).thenReturn(new Stage("Development", artifacts));
+
+        long batches = RetrieveBatcher.getBatchCount();
+        CompletableFuture<Stage> first = CompletableFuture.supplyAsync(() -> retrieve("a"));
+        Thread.sleep(50);
+        CompletableFuture<Stage> second = CompletableFuture.supplyAsync(() -> retrieve("b"));
+
+        Stage a = first.get(10, TimeUnit.SECONDS);
+        Stage b = second.get(10, TimeUnit.SECONDS);
+        assertEquals(1, a.getArtifacts().size());
+        assertEquals("1.0.0", a.getArtifacts().get(0).getVersion());
+        assertEquals(1, b.getArtifacts().size());
+        assertEquals("2.0.0", b.getArtifacts().get(0).getVersion());
+        assertEquals(batches + 1, RetrieveBatcher.getBatchCount());
+        verify(client, times(1)).retrieveVersions(eq("Development"), eq("a"), eq("b"));
+    }
+
+    @Test
+    public void fullBatchIsSentBeforeTheWindowEndsTest() throws Exception {
+        Configuration.get().setMaxBatchSize(1);
+        ServiceClient client = TestHelper.setupClient();
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("a", "A", "DockerImage", null, null, "1.0.0"));
+        when(client.retrieveVersions(eq("Development"), eq("a"))).thenReturn(new Stage("Development", artifacts));
+
+        long start = System.nanoTime();
+        Stage a = retrieve("a");
+        assertEquals("1.0.0", a.getArtifacts().get(0).getVersion());
+        assertEquals(true, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    }
+
+    private static Stage retrieve(String name) {
+        try {
+            return RetrieveBatcher.retrieveVersions(Configuration.snapshot(), null, "token", "Development", Collections.singletonList(name));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.RetryPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        Configuration configuration = Configuration.get();
+        configuration.setRetryMaxAttempts(3);
+        configuration.setRetryBaseDelayMillis(1);
+        configuration.setRetryMaxDelayMillis(10);
+    }
+
+    @Test
+    public void retryableErrorIsRetriedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        long retries = RetryPolicy.getRetryCount();
+
+        String result = policy().write(null, true, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ClientException("Server responded with 502 Bad Gateway");
+            }
+            return "1.0.0";
+        });
+
+        assertEquals("1.0.0", result);
+        assertEquals(3, attempts.get());
+        assertEquals(retries + 2, RetryPolicy.getRetryCount());
+    }
+
+    @Test
+    public void attemptsAreLimitedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy().write(null, true, () -> {
+                attempts.incrementAndGet();
+                throw new ClientException("Connection refused");
+            });
+            fail("The last error is expected to be thrown");
+        } catch (ClientException e) {
+            assertEquals("Connection refused", e.getMessage());
+        }
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void nonRetryableErrorIsNotRetriedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy().write(null, true, () -> {
+                attempts.incrementAndGet();
+                throw new ClientException("Artifact not found");
+            });
+            fail("The error is expected to be thrown");
+        } catch (ClientException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void nonIdempotentCallIsNotRetriedTest() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy().write(null, false, () -> {
+                attempts.incrementAndGet();
+                throw new ClientException("Server responded with 503");
+            });
+            fail("The error is expected to be thrown");
+        } catch (ClientException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    private static RetryPolicy policy() {
+        return Configuration.snapshot().getRetryPolicy();
+    }
+}
@@ -0,0 +1,106 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.iktech.jenkins.plugins.artifactz.ServiceClientCache;
+import org.junit.Test;
+
+import java.io.Closeable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+public class ServiceClientCacheTest {
+    @Test
+    public void reusesClientForTheSameKeyTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(2);
+        try (ServiceClientCache.Lease first = cache.acquire(new ServiceClientCache.Key("http://localhost:5002", "token", null, null, null), () -> mock(ServiceClient.class));
+             ServiceClientCache.Lease second = cache.acquire(new ServiceClientCache.Key("http://localhost:5002", "token", null, null, null), () -> mock(ServiceClient.class))) {
+            assertSame(first.getClient(), second.getClient());
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void differentTokenBuildsNewClientTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(2);
+        try (ServiceClientCache.Lease first = cache.acquire(new ServiceClientCache.Key("http://localhost:5002", "token", null, null, null), () -> mock(ServiceClient.class));
+             ServiceClientCache.Lease second = cache.acquire(new ServiceClientCache.Key("http://localhost:5002", "other", null, null, null), () -> mock(ServiceClient.class))) {
+            assertNotSame(first.getClient(), second.getClient());
+        }
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedClientTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(2);
+        ServiceClientCache.Key a = new ServiceClientCache.Key("http://a", "token", null, null, null);
+        ServiceClientCache.Key b = new ServiceClientCache.Key("http://b", "token", null, null, null);
+        ServiceClientCache.Key c = new ServiceClientCache.Key("http://c", "token", null, null, null);
+        ServiceClient clientA = mock(ServiceClient.class);
+        cache.acquire(a, () -> clientA).close();
+        cache.acquire(b, () -> mock(ServiceClient.class)).close();
+        cache.acquire(a, () -> mock(ServiceClient.class)).close();
+        cache.acquire(c, () -> mock(ServiceClient.class)).close();
+        assertEquals(2, cache.size());
+        try (ServiceClientCache.Lease lease = cache.acquire(a, () -> mock(ServiceClient.class))) {
+            assertSame(clientA, lease.getClient());
+        }
+    }
+
+    @Test
+    public void evictedClientIsClosedTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(1);
+        ServiceClient first = mock(ServiceClient.class, withSettings().extraInterfaces(Closeable.class));
+        ServiceClient second = mock(ServiceClient.class, withSettings().extraInterfaces(Closeable.class));
+        cache.acquire(new ServiceClientCache.Key("http://a", "token", null, null, null), () -> first).close();
+        cache.acquire(new ServiceClientCache.Key("http://b", "token", null, null, null), () -> second).close();
+        verify((Closeable) first).close();
+        verify((Closeable) second, never()).close();
+
+        cache.invalidateAll();
+        verify((Closeable) second).close();
+    }
+
+    @Test
+    public void droppedClientIsClosedAfterTheLastLeaseTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(1);
+        ServiceClient first = mock(ServiceClient.class, withSettings().extraInterfaces(Closeable.class));
+        ServiceClient second = mock(ServiceClient.class, withSettings().extraInterfaces(Closeable.class));
+        ServiceClientCache.Key a = new ServiceClientCache.Key("http://a", "token", null, null, null);
+        ServiceClientCache.Lease running = cache.acquire(a, () -> first);
+        ServiceClientCache.Lease other = cache.acquire(a, () -> first);
+
+        // neither the eviction nor the invalidation closes the client under the calls still running on it
+        ServiceClientCache.Lease evicting = cache.acquire(new ServiceClientCache.Key("http://b", "token", null, null, null), () -> second);
+        cache.invalidateAll();
+        verify((Closeable) first, never()).close();
+        verify((Closeable) second, never()).close();
+
+        running.close();
+        running.close();
+        verify((Closeable) first, never()).close();
+        other.close();
+        verify((Closeable) first).close();
+
+        evicting.close();
+        verify((Closeable) second).close();
+    }
+
+    @Test
+    public void invalidateAllTest() throws Exception {
+        ServiceClientCache cache = new ServiceClientCache(2);
+        ServiceClientCache.Key key = new ServiceClientCache.Key("http://localhost:5002", "token", null, null, null);
+        ServiceClient first = mock(ServiceClient.class);
+        cache.acquire(key, () -> first).close();
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        try (ServiceClientCache.Lease lease = cache.acquire(key, () -> mock(ServiceClient.class))) {
+            assertNotSame(first, lease.getClient());
+        }
+    }
+}
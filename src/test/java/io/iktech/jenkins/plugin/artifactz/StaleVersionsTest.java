@@ -0,0 +1,118 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.RetrievedVersions;
+import io.iktech.jenkins.plugins.artifactz.StaleMode;
+import io.iktech.jenkins.plugins.artifactz.VersionCache;
+import io.iktech.jenkins.plugins.artifactz.VersionRetriever;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class StaleVersionsTest {
+    private static final List<String> NAMES = Collections.singletonList("test-artifact");
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ServiceClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        Configuration.get().setServerUrl("http://localhost:5002");
+        Configuration.get().setVersionCacheTtlSeconds(0);
+        VersionCache.invalidateAll();
+        client = TestHelper.setupClient();
+    }
+
+    @Test
+    public void staleVersionIsServedOnErrorTest() throws Exception {
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact")))
+                .thenReturn(stage("1.0.0"))
+                .thenThrow(new ClientException("Service unavailable"));
+
+        assertFalse(retrieve(StaleMode.ON_ERROR, 3600).isStale());
+        RetrievedVersions versions = retrieve(StaleMode.ON_ERROR, 3600);
+
+        assertTrue(versions.isStale());
+        Map<String, String> result = versions.toMap();
+        assertEquals(1, result.size());
+        assertEquals("1.0.0", result.get("test-artifact"));
+        assertTrue(versions.getStaleAges().containsKey("test-artifact"));
+    }
+
+    @Test(expected = ClientException.class)
+    public void tooStaleVersionIsNotServedTest() throws Exception {
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact")))
+                .thenReturn(stage("1.0.0"))
+                .thenThrow(new ClientException("Service unavailable"));
+
+        retrieve(StaleMode.ON_ERROR, 3600);
+        Thread.sleep(10);
+        retrieve(StaleMode.ON_ERROR, 0);
+    }
+
+    @Test(expected = ClientException.class)
+    public void errorIsReportedWithoutStaleModeTest() throws Exception {
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact")))
+                .thenReturn(stage("1.0.0"))
+                .thenThrow(new ClientException("Service unavailable"));
+
+        retrieve(StaleMode.ON_ERROR, 3600);
+        retrieve(StaleMode.NONE, 3600);
+    }
+
+    @Test
+    public void staleVersionIsRevalidatedTest() throws Exception {
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact")))
+                .thenReturn(stage("1.0.0"))
+                .thenReturn(stage("1.0.1"));
+
+        assertFalse(retrieve(StaleMode.REVALIDATE, 3600).isStale());
+        RetrievedVersions versions = retrieve(StaleMode.REVALIDATE, 3600);
+        assertTrue(versions.isStale());
+        assertEquals("1.0.0", versions.toMap().get("test-artifact"));
+
+        verify(client, timeout(10000).times(2)).retrieveVersions(eq("Development"), eq("test-artifact"));
+        while (!"1.0.1".equals(VersionCache.get(Configuration.snapshot(), "token", "Development", "test-artifact").getVersion())) {
+            Thread.sleep(10);
+        }
+        assertEquals("1.0.1", retrieve(StaleMode.REVALIDATE, 3600).toMap().get("test-artifact"));
+    }
+
+    private static Stage stage(String version) {
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, version));
+        return new Stage("Development", artifacts);
+    }
+
+    private static RetrievedVersions retrieve(StaleMode staleMode, int maxStaleSeconds) throws Exception {
+        return VersionRetriever.retrieveVersions(Configuration.snapshot(), null, "token", "Development", NAMES, true, staleMode, maxStaleSeconds);
+    }
+}
@@ -0,0 +1,124 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.VersionCache;
+import io.iktech.jenkins.plugins.artifactz.VersionRetriever;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class VersionCacheTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ServiceClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        Configuration.get().setServerUrl("http://localhost:5002");
+        Configuration.get().setVersionCacheTtlSeconds(60);
+        VersionCache.invalidateAll();
+
+        client = TestHelper.setupClient();
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(new Stage("Development", artifacts));
+    }
+
+    @Test
+    public void cachedVersionIsServedTest() throws Exception {
+        List<String> names = Collections.singletonList("test-artifact");
+        long hits = VersionCache.getHitCount();
+
+        assertEquals("1.0.0", retrieve(names, true).getArtifacts().get(0).getVersion());
+        assertEquals("1.0.0", retrieve(names, true).getArtifacts().get(0).getVersion());
+
+        assertEquals(hits + 1, VersionCache.getHitCount());
+        verify(client, times(1)).retrieveVersions(eq("Development"), eq("test-artifact"));
+    }
+
+    @Test
+    public void cacheCanBeBypassedTest() throws Exception {
+        List<String> names = Collections.singletonList("test-artifact");
+        retrieve(names, true);
+        retrieve(names, false);
+
+        verify(client, times(2)).retrieveVersions(eq("Development"), eq("test-artifact"));
+    }
+
+    @Test
+    public void pushInvalidatesAllStagesTest() throws Exception {
+        List<String> names = Collections.singletonList("test-artifact");
+        retrieve(names, true);
+        VersionCache.put(Configuration.snapshot(), "token", "Production", "test-artifact", "0.9.0");
+
+        VersionCache.invalidate(Configuration.snapshot(), "token", "test-artifact");
+
+        assertEquals(0, VersionCache.getSize());
+        assertNull(VersionCache.getFresh(Configuration.snapshot(), "token", "Production", "test-artifact"));
+    }
+
+    @Test
+    public void retrieveStartedBeforePushIsNotCachedTest() throws Exception {
+        long started = VersionCache.getGeneration();
+        VersionCache.invalidate(Configuration.snapshot(), "token", "test-artifact");
+
+        VersionCache.put(Configuration.snapshot(), "token", "Development", "test-artifact", "1.0.0", started);
+        assertEquals(0, VersionCache.getSize());
+
+        VersionCache.put(Configuration.snapshot(), "token", "Development", "test-artifact", "1.0.1", VersionCache.getGeneration());
+        assertEquals("1.0.1", VersionCache.getFresh(Configuration.snapshot(), "token", "Development", "test-artifact"));
+    }
+
+    @Test
+    public void retrieveStartedBeforePublishDoesNotOverwriteItTest() throws Exception {
+        long started = VersionCache.getGeneration();
+        VersionCache.put(Configuration.snapshot(), "token", "Development", "test-artifact", "1.0.1");
+
+        VersionCache.put(Configuration.snapshot(), "token", "Development", "test-artifact", "1.0.0", started);
+        assertEquals("1.0.1", VersionCache.getFresh(Configuration.snapshot(), "token", "Development", "test-artifact"));
+    }
+
+    @Test
+    public void publishUpdatesCacheTest() throws Exception {
+        retrieve(Collections.singletonList("test-artifact"), true);
+        VersionCache.put(Configuration.snapshot(), "token", "Development", "test-artifact", "1.0.1");
+
+        assertEquals("1.0.1", retrieve(Collections.singletonList("test-artifact"), true).getArtifacts().get(0).getVersion());
+    }
+
+    @Test
+    public void disabledCacheStoresNothingTest() throws Exception {
+        Configuration.get().setVersionCacheTtlSeconds(0);
+        retrieve(Collections.singletonList("test-artifact"), true);
+
+        assertEquals(0, VersionCache.getSize());
+    }
+
+    private static Stage retrieve(List<String> names, boolean useCache) throws Exception {
+        return VersionRetriever.retrieveVersions(Configuration.snapshot(), null, "token", "Development", names, useCache);
+    }
+}
@@ -0,0 +1,139 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.iktech.jenkins.plugins.artifactz.VersionRetriever;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class VersionRetrieverTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        Configuration.get().setServerUrl("http://localhost:5002");
+    }
+
+    @Test
+    public void concurrentIdenticalRequestsAreCoalescedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+        Stage stage = new Stage("Development", artifacts);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return stage;
+        });
+
+        List<String> names = Collections.singletonList("test-artifact");
+        CompletableFuture<Stage> first = CompletableFuture.supplyAsync(() -> retrieve(names));
+        entered.await(10, TimeUnit.SECONDS);
+
+        long coalesced = VersionRetriever.getCoalescedCount();
+        CompletableFuture<Stage> second = CompletableFuture.supplyAsync(() -> retrieve(names));
+        while (VersionRetriever.getCoalescedCount() == coalesced) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertSame(stage, first.get(10, TimeUnit.SECONDS));
+        assertSame(stage, second.get(10, TimeUnit.SECONDS));
+        assertEquals(coalesced + 1, VersionRetriever.getCoalescedCount());
+        verify(client, times(1)).retrieveVersions(eq("Development"), eq("test-artifact"));
+    }
+
+    @Test
+    public void interruptingTheFirstCallerDoesNotFailTheOthersTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        List<Version> artifacts = new ArrayList<>();
+        artifacts.add(new Version("test-artifact", "Test Artifact", "DockerImage", null, null, "1.0.0"));
+        Stage stage = new Stage("Development", artifacts);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return stage;
+        });
+
+        List<String> names = Collections.singletonList("test-artifact");
+        CompletableFuture<Throwable> firstError = new CompletableFuture<>();
+        Thread first = new Thread(() -> {
+            try {
+                VersionRetriever.retrieveVersions(Configuration.snapshot(), null, "token", "Development", names, true);
+                firstError.complete(null);
+            } catch (Exception e) {
+                firstError.complete(e);
+            }
+        });
+        first.start();
+        entered.await(10, TimeUnit.SECONDS);
+
+        long coalesced = VersionRetriever.getCoalescedCount();
+        CompletableFuture<Stage> second = CompletableFuture.supplyAsync(() -> retrieve(names));
+        while (VersionRetriever.getCoalescedCount() == coalesced) {
+            Thread.sleep(10);
+        }
+        first.interrupt();
+        assertTrue(firstError.get(10, TimeUnit.SECONDS) instanceof InterruptedException);
+        release.countDown();
+
+        assertSame(stage, second.get(10, TimeUnit.SECONDS));
+        // the second caller has made the call abandoned by the first one
+        verify(client, times(2)).retrieveVersions(eq("Development"), eq("test-artifact"));
+    }
+
+    @Test
+    public void sequentialRequestsAreNotCoalescedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        Stage stage = new Stage("Development", new ArrayList<>());
+        when(client.retrieveVersions(eq("Development"), eq("test-artifact"))).thenReturn(stage);
+
+        List<String> names = Collections.singletonList("test-artifact");
+        retrieve(names);
+        retrieve(names);
+
+        verify(client, times(2)).retrieveVersions(eq("Development"), eq("test-artifact"));
+    }
+
+    private static Stage retrieve(List<String> names) {
+        try {
+            return VersionRetriever.retrieveVersions(Configuration.snapshot(), null, "token", "Development", names, true);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
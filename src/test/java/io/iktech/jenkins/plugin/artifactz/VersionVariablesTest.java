@@ -0,0 +1,76 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import io.iktech.jenkins.plugins.artifactz.VersionVariables;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VersionVariablesTest {
+    @Test
+    public void normalizeTest() {
+        assertEquals("DOCUMENT_MANAGER_UI", VersionVariables.normalize("document-manager-ui"));
+        assertEquals("IO_IKTECH_APP", VersionVariables.normalize("io.iktech:app"));
+        assertEquals("_1ST", VersionVariables.normalize("1st"));
+        assertEquals("_", VersionVariables.normalize(""));
+    }
+
+    @Test
+    public void singleStageVariablesTest() {
+        Map<String, Object> versions = new LinkedHashMap<>();
+        versions.put("document-manager-ui", "1.0.0");
+        versions.put("document-manager", "1.0.3");
+        versions.put("_stale", "2.0.0");
+        Map<String, String> renamed = new HashMap<>();
+
+        Map<String, String> variables = VersionVariables.toVariables("artifactz_", versions, renamed);
+
+        assertEquals(3, variables.size());
+        assertEquals("2.0.0", variables.get("ARTIFACTZ__STALE"));
+        assertEquals("1.0.0", variables.get("ARTIFACTZ_DOCUMENT_MANAGER_UI"));
+        assertEquals("1.0.3", variables.get("ARTIFACTZ_DOCUMENT_MANAGER"));
+        assertTrue(renamed.isEmpty());
+    }
+
+    @Test
+    public void multipleStagesVariablesTest() {
+        Map<String, String> uat = new LinkedHashMap<>();
+        uat.put("document-manager-ui", "1.0.0");
+        Map<String, Object> versions = new LinkedHashMap<>();
+        versions.put("uat", uat);
+
+        Map<String, String> variables = VersionVariables.toVariables("ARTIFACTZ", versions, new HashMap<>());
+
+        assertEquals("1.0.0", variables.get("ARTIFACTZ_UAT_DOCUMENT_MANAGER_UI"));
+    }
+
+    @Test
+    public void collisionsGetSuffixesTest() {
+        Map<String, Object> versions = new LinkedHashMap<>();
+        versions.put("document-manager", "1.0.0");
+        versions.put("document.manager", "2.0.0");
+        versions.put("other", "3.0.0");
+        Map<String, String> renamed = new HashMap<>();
+
+        Map<String, String> variables = VersionVariables.toVariables("ARTIFACTZ", versions, renamed);
+
+        assertEquals(3, variables.size());
+        assertFalse(variables.containsKey("ARTIFACTZ_DOCUMENT_MANAGER"));
+        assertEquals("3.0.0", variables.get("ARTIFACTZ_OTHER"));
+        assertEquals(2, renamed.size());
+        for (Map.Entry<String, String> entry : renamed.entrySet()) {
+            assertTrue(entry.getKey().startsWith("ARTIFACTZ_DOCUMENT_MANAGER_"));
+            assertEquals(entry.getValue().equals("document-manager") ? "1.0.0" : "2.0.0", variables.get(entry.getKey()));
+        }
+
+        Map<String, Object> reversed = new LinkedHashMap<>();
+        reversed.put("document.manager", "2.0.0");
+        reversed.put("document-manager", "1.0.0");
+        assertEquals(renamed.keySet(), VersionVariables.toVariables("ARTIFACTZ", reversed, new HashMap<>()).keySet());
+    }
+}
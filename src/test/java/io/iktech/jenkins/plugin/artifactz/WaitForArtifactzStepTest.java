@@ -0,0 +1,137 @@
+package io.iktech.jenkins.plugin.artifactz;
+
+import hudson.model.Result;
+import io.artifactz.client.ServiceClient;
+import io.artifactz.client.ServiceClientBuilder;
+import io.artifactz.client.exception.ClientException;
+import io.iktech.jenkins.plugins.artifactz.Configuration;
+import io.jenkins.cli.shaded.org.apache.commons.io.FileUtils;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ ServiceClientBuilder.class})
+@PowerMockIgnore({"org.apache.http.conn.ssl.*", "javax.net.ssl.*" , "javax.crypto.*" })
+public class WaitForArtifactzStepTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() throws IOException {
+        TestHelper.addCredential(j, "test");
+        Configuration configuration = Configuration.get();
+        configuration.setServerUrl("http://localhost:5002");
+        configuration.doFillCredentialsIdItems(Jenkins.get(), null, "test");
+        configuration.setCredentialsId("test");
+    }
+
+    @Test
+    public void asyncCallsAreWaitedForTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenReturn("1.0.0");
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def published = publishArtifact name: 'test-artifact', type: 'JAR', stage: 'Development', version: '1.0.0', async: true\n" +
+                "  def pushed = pushArtifact stage: 'Development', name: 'test-artifact', async: true\n" +
+                "  echo \"Handle: ${pushed}\"\n" +
+                "  def results = waitForArtifactz()\n" +
+                "  echo \"Published: ${results[published]}, pushed: ${results[pushed]}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Handle: artifactz-"));
+        assertThat(s, containsString("Waiting for 2 Artifactz call(s)"));
+        assertThat(s, containsString("Published: true, pushed: 1.0.0"));
+    }
+
+    @Test
+    public void asyncFailureIsReportedByWaitTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenThrow(new ClientException("test exception"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  def pushed = pushArtifact stage: 'Development', name: 'test-artifact', async: true\n" +
+                "  sleep time: 500, unit: 'MILLISECONDS'\n" +
+                "  echo 'Still running'\n" +
+                "  waitForArtifactz handles: [pushed]\n" +
+                "}", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        j.assertBuildStatus(Result.FAILURE, build);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("Still running"));
+        assertThat(s, containsString("1 of 1 Artifactz calls failed: The push of artifact 'test-artifact' failed: Error while pushing artifact version: test exception"));
+    }
+
+    @Test
+    public void failureNotWaitedForIsReportedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenThrow(new ClientException("test exception"));
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  pushArtifact stage: 'Development', name: 'test-artifact', async: true\n" +
+                "  sleep time: 500, unit: 'MILLISECONDS'\n" +
+                "}", true));
+
+        WorkflowRun build = j.assertBuildStatus(Result.FAILURE, project.scheduleBuild2(0));
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("The push of artifact 'test-artifact' failed: Error while pushing artifact version: test exception"));
+        assertThat(s, containsString("Finished: FAILURE"));
+    }
+
+    @Test
+    public void failuresAreIgnoredWhenRequestedTest() throws Exception {
+        ServiceClient client = TestHelper.setupClient();
+        when(client.pushArtifact(eq("Development"), eq("broken"), any())).thenThrow(new ClientException("test exception"));
+        when(client.pushArtifact(eq("Development"), eq("test-artifact"), any())).thenReturn("1.0.0");
+
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("" +
+                "node {" +
+                "  pushArtifact stage: 'Development', name: 'broken', async: true\n" +
+                "  pushArtifact stage: 'Development', name: 'test-artifact', async: true\n" +
+                "  def results = waitForArtifactz failOnError: false\n" +
+                "  echo \"Results: ${results.size()}\"\n" +
+                "}", true));
+
+        WorkflowRun build = j.buildAndAssertSuccess(project);
+        String s = FileUtils.readFileToString(build.getLogFile());
+        assertThat(s, containsString("The push of artifact 'broken' failed"));
+        assertThat(s, containsString("Results: 1"));
+    }
+
+    @Test
+    public void unknownHandleFailsTest() throws Exception {
+        WorkflowJob project = j.createProject(WorkflowJob.class);
+        project.setDefinition(new CpsFlowDefinition("waitForArtifactz handles: ['artifactz-0']", true));
+
+        WorkflowRun build = project.scheduleBuild2(0).get();
+        j.assertBuildStatus(Result.FAILURE, build);
+        assertThat(FileUtils.readFileToString(build.getLogFile()), containsString("Unknown Artifactz call handle 'artifactz-0'"));
+    }
+}
@@ -0,0 +1,29 @@
+package io.iktech.jenkins.plugin.artifactz.benchmark;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this package, e.g. {@code mvn test -Dbenchmark -Dtest=BenchmarkRunner}. The GC profiler
+ * adds the allocation rate per operation, {@code gc.alloc.rate.norm}, to the results.
+ */
+public class BenchmarkRunner {
+    @Test
+    public void runJmhBenchmarks() throws Exception {
+        Assume.assumeTrue(System.getProperty("benchmark") != null);
+
+        Options options = new OptionsBuilder()
+                .include(getClass().getPackage().getName() + ".*Benchmark")
+                .shouldFailOnError(true)
+                .addProfiler(GCProfiler.class)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,111 @@
+package io.iktech.jenkins.plugin.artifactz.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.EnvVars;
+import hudson.model.Run;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzEnvironmentAction;
+import io.iktech.jenkins.plugins.artifactz.InjectVariable;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the share of the Artifactz steps in the cost of {@link Run#getEnvironment} when every step contributes an
+ * action of its own, which reads its retrieved versions on every request, and when the steps contribute to the single
+ * {@link ArtifactzEnvironmentAction} of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EnvironmentContributionBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"1", "10", "50"})
+    public int contributions;
+
+    @Param({"perAction", "memoized"})
+    public String implementation;
+
+    private File rootDir;
+
+    private Run<?, ?> run;
+
+    private final List<InjectVariable> pushed = new ArrayList<>();
+
+    private final List<File> retrieved = new ArrayList<>();
+
+    private ArtifactzEnvironmentAction action;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.rootDir = Files.createTempDirectory("artifactz-benchmark").toFile();
+        this.run = mock(Run.class);
+        when(this.run.getRootDir()).thenReturn(this.rootDir);
+        this.action = ArtifactzEnvironmentAction.of(this.run);
+
+        for (int i = 0; i < this.contributions; i++) {
+            Map<String, String> versions = new LinkedHashMap<>();
+            for (int j = 0; j < 20; j++) {
+                versions.put("ARTIFACT_" + j, "1." + i + "." + j);
+            }
+            if ("memoized".equals(this.implementation)) {
+                this.action.put("PUSHED_VERSION_" + i, "1." + i + ".0");
+                this.action.putVariables(versions);
+            } else {
+                this.pushed.add(new InjectVariable("PUSHED_VERSION_" + i, "1." + i + ".0"));
+                File file = new File(this.rootDir, "versions-" + i + ".json");
+                Files.write(file.toPath(), objectMapper.writeValueAsBytes(versions));
+                this.retrieved.add(file);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.rootDir);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public EnvVars getEnvironment() throws IOException {
+        EnvVars env = new EnvVars();
+        if ("memoized".equals(this.implementation)) {
+            this.action.buildEnvironment(this.run, env);
+            return env;
+        }
+        for (InjectVariable variable : this.pushed) {
+            variable.buildEnvVars(null, env);
+        }
+        for (File file : this.retrieved) {
+            env.putAll(objectMapper.readValue(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), new TypeReference<Map<String, String>>() {}));
+        }
+        return env;
+    }
+}
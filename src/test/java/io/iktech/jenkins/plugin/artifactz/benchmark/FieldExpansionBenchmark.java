@@ -0,0 +1,84 @@
+package io.iktech.jenkins.plugin.artifactz.benchmark;
+
+import hudson.EnvVars;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.iktech.jenkins.plugins.artifactz.LazyEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the expansion of the seven fields of the publish build steps when the environment of the run is always
+ * resolved and when it is resolved by the {@link LazyEnvironment} on the first variable reference only.
+ *
+ * The environment resolution is simulated by building an environment of the size of a typical agent's, the real cost
+ * of {@link Run#getEnvironment(TaskListener)} also includes every environment contributor and node property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FieldExpansionBenchmark {
+    private static final int ENVIRONMENT_SIZE = 200;
+
+    @Param({"static", "variables"})
+    public String configuration;
+
+    @Param({"eager", "lazy"})
+    public String implementation;
+
+    private Run<?, ?> run;
+
+    private String[] fields;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        this.run = mock(Run.class);
+        when(this.run.getEnvironment(any(TaskListener.class))).thenAnswer(invocation -> {
+            EnvVars env = new EnvVars(System.getenv());
+            for (int i = 0; i < ENVIRONMENT_SIZE; i++) {
+                env.put("VARIABLE_" + i, "value-" + i);
+            }
+            return env;
+        });
+        if ("static".equals(this.configuration)) {
+            this.fields = new String[] {"Development", "Development stage", "test-artifact", "Test artifact", "io.iktech", "test-artifact", "1.0.0"};
+        } else {
+            this.fields = new String[] {"Development", "Development stage", "test-artifact", "Test artifact", "io.iktech", "test-artifact", "1.0.${VARIABLE_1}"};
+        }
+    }
+
+    @Benchmark
+    public void expandFields(Blackhole blackhole) throws IOException, InterruptedException {
+        if ("eager".equals(this.implementation)) {
+            EnvVars env = this.run.getEnvironment(TaskListener.NULL);
+            for (String field : this.fields) {
+                blackhole.consume(env.expand(field));
+            }
+        } else {
+            LazyEnvironment env = new LazyEnvironment(this.run, TaskListener.NULL);
+            for (String field : this.fields) {
+                blackhole.consume(env.expand(field));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.iktech.jenkins.plugin.artifactz.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.artifactz.client.model.Stage;
+import io.artifactz.client.model.Version;
+import io.iktech.jenkins.plugins.artifactz.RetrievedVersions;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing the retrieved versions to the side file of the build by converting them to a map and serializing
+ * the map to a string first, and by streaming them straight to the file. Run with the GC profiler of the
+ * {@link BenchmarkRunner} to compare the bytes allocated per operation; the file is replaced by a null stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RetrieveOutputBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"100", "1000", "10000"})
+    public int artifacts;
+
+    private RetrievedVersions versions;
+
+    @Setup
+    public void setUp() {
+        List<Version> list = new ArrayList<>();
+        for (int i = 0; i < this.artifacts; i++) {
+            list.add(new Version("test-artifact-" + i, "Test Artifact " + i, "DockerImage", null, null, "1.0." + i));
+        }
+        this.versions = new RetrievedVersions(new Stage("Development", list), Collections.emptyMap());
+    }
+
+    @Benchmark
+    public void map() throws IOException {
+        String content = objectMapper.writeValueAsString(this.versions.toMap());
+        try (OutputStream out = new NullOutputStream()) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        try (OutputStream out = new NullOutputStream();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            this.versions.writeTo(generator);
+        }
+    }
+}
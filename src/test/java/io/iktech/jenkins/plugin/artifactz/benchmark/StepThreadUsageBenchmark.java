@@ -0,0 +1,136 @@
+package io.iktech.jenkins.plugin.artifactz.benchmark;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzExecutor;
+import io.iktech.jenkins.plugins.artifactz.ArtifactzStepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Compares the number of threads held by concurrently running steps when every step blocks a thread of its own, as
+ * the {@link SynchronousNonBlockingStepExecution synchronous non-blocking step executions} do, and when the steps are
+ * {@link ArtifactzStepExecution Artifactz step executions} dispatched to the {@link ArtifactzExecutor}. The service
+ * call is simulated with a fixed latency and the peak number of threads held by the steps is reported through the
+ * {@link ThreadUsage} counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StepThreadUsageBenchmark {
+    private static final long SERVICE_LATENCY_MILLIS = 50;
+
+    @Param({"10", "100", "500"})
+    public int concurrentSteps;
+
+    @Param({"synchronous", "asynchronous"})
+    public String execution;
+
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private final AtomicInteger peak = new AtomicInteger();
+
+    private volatile CountDownLatch done;
+
+    private StepContext context;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadUsage {
+        public int peakThreadsInUse;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.peakThreadsInUse = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // stub only, the context is completed thousands of times and must not record the invocations
+        this.context = mock(StepContext.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            this.done.countDown();
+            return null;
+        }).when(this.context).onSuccess(any());
+        doAnswer(invocation -> {
+            this.done.countDown();
+            return null;
+        }).when(this.context).onFailure(any());
+    }
+
+    @Benchmark
+    public void concurrentSteps(ThreadUsage usage) throws Exception {
+        this.done = new CountDownLatch(this.concurrentSteps);
+        this.peak.set(0);
+        for (int i = 0; i < this.concurrentSteps; i++) {
+            StepExecution stepExecution = "synchronous".equals(this.execution) ? new SynchronousExecution(this.context) : new ArtifactzExecution(this.context);
+            stepExecution.start();
+        }
+        this.done.await();
+        usage.peakThreadsInUse = Math.max(usage.peakThreadsInUse, this.peak.get());
+    }
+
+    private String callService() throws InterruptedException {
+        this.peak.accumulateAndGet(this.inUse.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(SERVICE_LATENCY_MILLIS);
+            return "1.0.0";
+        } finally {
+            this.inUse.decrementAndGet();
+        }
+    }
+
+    private final class SynchronousExecution extends SynchronousNonBlockingStepExecution<String> {
+        private static final long serialVersionUID = 1L;
+
+        private SynchronousExecution(StepContext context) {
+            super(context);
+        }
+
+        @Override
+        protected String run() throws Exception {
+            return callService();
+        }
+    }
+
+    private final class ArtifactzExecution extends ArtifactzStepExecution<String> {
+        private static final long serialVersionUID = 1L;
+
+        private ArtifactzExecution(StepContext context) {
+            super(context);
+        }
+
+        @Override
+        protected String run(Run<?, ?> run, TaskListener taskListener, FilePath workspace) throws Exception {
+            return callService();
+        }
+    }
+}